@@ -0,0 +1,46 @@
+package com.contoso.socialapp.benchmarks;
+
+import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw repository reads, including row mapping, straight against the pooled SQLite connection. The feed and
+ * single-post reads also report their statement count per call (see {@link Statements}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmarks {
+
+    @Benchmark
+    public List<Post> feedFirstPage(SeededApp app, Statements statements) {
+        return statements.count(() -> app.postRepository.findPage(null, 51));
+    }
+
+    @Benchmark
+    public List<Post> feedMiddlePage(SeededApp app, Statements statements) {
+        return statements.count(() -> app.postRepository.findPage(app.middleCursor, 51));
+    }
+
+    @Benchmark
+    public Optional<Post> findById(SeededApp app, Statements statements) {
+        return statements.count(() -> app.postRepository.findById(app.randomPostId()));
+    }
+
+    @Benchmark
+    public boolean existsById(SeededApp app) {
+        return app.postRepository.existsById(app.randomPostId());
+    }
+
+    @Benchmark
+    public List<Comment> commentsByPost(SeededApp app) {
+        return app.commentRepository.findPage(app.randomPostId(), null, 51);
+    }
+}
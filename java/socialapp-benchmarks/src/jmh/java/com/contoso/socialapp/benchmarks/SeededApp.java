@@ -0,0 +1,131 @@
+package com.contoso.socialapp.benchmarks;
+
+import com.contoso.socialapp.SocialappApplication;
+import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.PageCursor;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.repository.CommentRepository;
+import com.contoso.socialapp.repository.Ids;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.service.CommentService;
+import com.contoso.socialapp.service.PostIdFilter;
+import com.contoso.socialapp.service.PostService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application (without the web server) against a fresh SQLite file seeded with
+ * {@code posts} posts, so benchmarks exercise the real pool, PRAGMAs, cache and beans.
+ * Every post gets {@code i % 8} likes and {@code i % 4} comments.
+ */
+@State(Scope.Benchmark)
+public class SeededApp {
+
+    private static final int BATCH = 5_000;
+
+    @Param({"1000", "10000", "100000"})
+    public int posts;
+
+    public PostRepository postRepository;
+    public CommentRepository commentRepository;
+    public PostService postService;
+    public CommentService commentService;
+    public ObjectMapper objectMapper;
+
+    /** Cursor pointing at the middle of the feed, for deep-page reads. */
+    public PageCursor middleCursor;
+    public List<Post> feedPage;
+    public List<Comment> commentPage;
+
+    private String[] postIds;
+    private Path dir;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        dir = Files.createTempDirectory("socialapp-jmh");
+        context = new SpringApplicationBuilder(SocialappApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "app.sqlite.path=" + dir.resolve("bench.db"),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        postRepository = context.getBean(PostRepository.class);
+        commentRepository = context.getBean(CommentRepository.class);
+        postService = context.getBean(PostService.class);
+        commentService = context.getBean(CommentService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        seed(context.getBean(JdbcTemplate.class), new TransactionTemplate(context.getBean(PlatformTransactionManager.class)));
+        // The filter was loaded from the empty database on startup
+        context.getBean(PostIdFilter.class).run(null);
+
+        feedPage = postRepository.findPage(null, 50);
+        Post middle = postRepository.findById(postIds[postIds.length / 2]).orElseThrow();
+        middleCursor = new PageCursor(middle.getCreatedAt(), middle.getId());
+        commentPage = commentRepository.findPage(postIds[Math.min(3, posts - 1)], null, 50);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    public String randomPostId() {
+        return postIds[ThreadLocalRandom.current().nextInt(postIds.length)];
+    }
+
+    private void seed(JdbcTemplate jdbc, TransactionTemplate tx) {
+        postIds = new String[posts];
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        List<Object[]> postRows = new ArrayList<>(BATCH);
+        List<Object[]> likeRows = new ArrayList<>();
+        List<Object[]> commentRows = new ArrayList<>();
+        for (int i = 0; i < posts; i++) {
+            String id = UUID.randomUUID().toString();
+            long ts = base.plusSeconds(i).toEpochMilli();
+            postIds[i] = id;
+            postRows.add(new Object[]{Ids.toBytes(id), "user" + (i % 500), "Benchmark post number " + i + " with some text", ts, ts});
+            for (int l = 0; l < i % 8; l++) {
+                likeRows.add(new Object[]{Ids.toBytes(id), "liker" + l, ts});
+            }
+            for (int c = 0; c < i % 4; c++) {
+                commentRows.add(new Object[]{Ids.toBytes(UUID.randomUUID().toString()), Ids.toBytes(id), "commenter" + c, "Comment " + c + " on post " + i, ts, ts});
+            }
+            if (postRows.size() == BATCH || i == posts - 1) {
+                tx.executeWithoutResult(s -> {
+                    jdbc.batchUpdate("INSERT INTO posts (id, username, content, created_at, updated_at) VALUES (?,?,?,?,?)", postRows);
+                    jdbc.batchUpdate("INSERT INTO likes (post_id, username, liked_at) VALUES (?,?,?)", likeRows);
+                    jdbc.batchUpdate("INSERT INTO comments (id, post_id, username, content, created_at, updated_at) VALUES (?,?,?,?,?,?)", commentRows);
+                });
+                postRows.clear();
+                likeRows.clear();
+                commentRows.clear();
+            }
+        }
+        jdbc.execute("ANALYZE");
+    }
+}
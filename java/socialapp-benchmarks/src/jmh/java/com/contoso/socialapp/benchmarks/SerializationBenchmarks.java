@@ -0,0 +1,30 @@
+package com.contoso.socialapp.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/** JSON encoding of response bodies with the application's configured ObjectMapper. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmarks {
+
+    @Benchmark
+    public byte[] encodeFeedPage(SeededApp app) throws JsonProcessingException {
+        return app.objectMapper.writeValueAsBytes(app.feedPage);
+    }
+
+    @Benchmark
+    public byte[] encodeSinglePost(SeededApp app) throws JsonProcessingException {
+        return app.objectMapper.writeValueAsBytes(app.feedPage.get(0));
+    }
+
+    @Benchmark
+    public byte[] encodeComments(SeededApp app) throws JsonProcessingException {
+        return app.objectMapper.writeValueAsBytes(app.commentPage);
+    }
+}
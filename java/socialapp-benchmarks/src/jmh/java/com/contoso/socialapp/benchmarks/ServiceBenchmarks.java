@@ -0,0 +1,42 @@
+package com.contoso.socialapp.benchmarks;
+
+import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service entry points as the controllers call them: cursor handling, cache and like overlay included. The
+ * feed and single-post calls also report their statement count per call (see {@link Statements}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceBenchmarks {
+
+    @Benchmark
+    public CursorPage<Post> listPostsFirstPage(SeededApp app, Statements statements) {
+        return statements.count(() -> app.postService.listPosts(null, null));
+    }
+
+    @Benchmark
+    public CursorPage<Post> listPostsMiddlePage(SeededApp app, Statements statements) {
+        return statements.count(() -> app.postService.listPosts(app.middleCursor.encode(), null));
+    }
+
+    // Mostly served from the post cache once it has warmed up
+    @Benchmark
+    public Optional<Post> getPost(SeededApp app, Statements statements) {
+        return statements.count(() -> app.postService.getPost(app.randomPostId()));
+    }
+
+    @Benchmark
+    public CursorPage<Comment> listComments(SeededApp app) {
+        return app.commentService.list(app.randomPostId(), null, null);
+    }
+}
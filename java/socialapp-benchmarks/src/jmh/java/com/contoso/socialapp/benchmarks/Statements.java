@@ -0,0 +1,45 @@
+package com.contoso.socialapp.benchmarks;
+
+import com.contoso.socialapp.repository.QueryStats;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.function.Supplier;
+
+/**
+ * Counts the SQL statements a benchmarked call executes, through the same QueryStats binding that
+ * QueryCountingDataSource records into for HTTP requests. JMH reports {@code statementsPerCall} next to
+ * the latency, so one run over several {@code posts} sizes shows whether the statement count grows with
+ * the data. Calls served from memory (cache, feed projection) count zero.
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class Statements {
+
+    private long statements;
+    private long calls;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+        calls = 0;
+    }
+
+    public double statementsPerCall() {
+        return calls == 0 ? 0 : (double) statements / calls;
+    }
+
+    <T> T count(Supplier<T> call) {
+        QueryStats stats = QueryStats.begin();
+        try {
+            return call.get();
+        } finally {
+            QueryStats.end();
+            statements += stats.statements();
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.contoso.socialapp.loadtest;
+
+/** Operations the generator can issue; each is reported separately. */
+public enum Endpoint {
+    FEED("GET /api/posts"),
+    GET_POST("GET /api/posts/{id}"),
+    CREATE_POST("POST /api/posts"),
+    LIST_COMMENTS("GET /api/posts/{id}/comments"),
+    CREATE_COMMENT("POST /api/posts/{id}/comments"),
+    LIKE("POST /api/posts/{id}/likes"),
+    UNLIKE("DELETE /api/posts/{id}/likes");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static Endpoint parse(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
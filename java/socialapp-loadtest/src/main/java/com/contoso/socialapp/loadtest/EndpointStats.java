@@ -0,0 +1,37 @@
+package com.contoso.socialapp.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency and outcome counters for one endpoint during the measured window. */
+final class EndpointStats {
+
+    final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    void success(long micros) {
+        latency.record(micros);
+    }
+
+    /** Records a non-2xx status (e.g. "503") or a client-side failure (e.g. "timeout"). */
+    void failure(long micros, String reason) {
+        latency.record(micros);
+        errors.increment();
+        failures.computeIfAbsent(reason, k -> new LongAdder()).increment();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    String failureSummary() {
+        Map<String, Long> sorted = new TreeMap<>();
+        failures.forEach((k, v) -> sorted.put(k, v.sum()));
+        StringBuilder sb = new StringBuilder();
+        sorted.forEach((k, v) -> sb.append(sb.isEmpty() ? "" : " ").append(k).append('x').append(v));
+        return sb.toString();
+    }
+}
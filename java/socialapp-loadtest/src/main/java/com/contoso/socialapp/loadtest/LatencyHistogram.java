@@ -0,0 +1,62 @@
+package com.contoso.socialapp.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of latencies in microseconds. Values below 128 microseconds are recorded
+ * exactly; above that each power of two is split into 64 buckets, bounding the error to under 2%.
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int MAX_EXPONENT = 30; // values above ~38 hours are clamped
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + MAX_EXPONENT * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long v = Math.max(0, micros);
+        counts.incrementAndGet(index(v));
+        total.incrementAndGet();
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /** Upper bound of the bucket holding the given quantile (0..1), in microseconds. */
+    public long percentile(double quantile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    private static int index(long v) {
+        if (v < LINEAR) return (int) v;
+        int exponent = 63 - Long.numberOfLeadingZeros(v) - 6;
+        if (exponent > MAX_EXPONENT) return LINEAR + MAX_EXPONENT * SUB_BUCKETS - 1;
+        int sub = (int) (v >>> exponent) - SUB_BUCKETS;
+        return LINEAR + (exponent - 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR) return index;
+        int exponent = (index - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,85 @@
+package com.contoso.socialapp.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Command line options, given as {@code --name=value}. */
+public record LoadConfig(
+        URI baseUrl,
+        Scenario scenario,
+        double rate,
+        boolean poisson,
+        Duration warmup,
+        Duration duration,
+        int posts,
+        double zipfExponent,
+        int users,
+        int feedLimit,
+        int maxInFlight,
+        Duration timeout) {
+
+    static final String USAGE = """
+            Usage: loadtest [--name=value ...]
+              --base-url=http://localhost:8080   instance under test
+              --scenario=read-heavy              read-heavy | like-storm | comment-burst
+              --mix=feed:60,get_post:40          custom endpoint weights (overrides --scenario)
+              --rate=200                         target arrivals per second (open model)
+              --arrival=poisson                  poisson | constant inter-arrival times
+              --warmup=10                        seconds of load before recording starts
+              --duration=60                      seconds of recorded load
+              --posts=1000                       posts to target; missing ones are created first
+              --zipf=1.1                         Zipf exponent for picking hot posts (0 = uniform)
+              --users=10000                      distinct usernames for likes and comments
+              --feed-limit=50                    page size for feed requests
+              --max-in-flight=5000               requests beyond this are counted as dropped
+              --timeout=10                       per-request timeout in seconds
+            """;
+
+    public static LoadConfig parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String mix = opts.remove("mix");
+        String scenario = take(opts, "scenario", "read-heavy");
+        String arrival = take(opts, "arrival", "poisson");
+        if (!arrival.equals("poisson") && !arrival.equals("constant")) {
+            throw new IllegalArgumentException("--arrival must be poisson or constant");
+        }
+        LoadConfig config = new LoadConfig(
+                URI.create(stripSlash(take(opts, "base-url", "http://localhost:8080"))),
+                mix != null ? Scenario.parseMix(mix) : Scenario.named(scenario),
+                Double.parseDouble(take(opts, "rate", "200")),
+                arrival.equals("poisson"),
+                Duration.ofSeconds(Long.parseLong(take(opts, "warmup", "10"))),
+                Duration.ofSeconds(Long.parseLong(take(opts, "duration", "60"))),
+                Integer.parseInt(take(opts, "posts", "1000")),
+                Double.parseDouble(take(opts, "zipf", "1.1")),
+                Integer.parseInt(take(opts, "users", "10000")),
+                Integer.parseInt(take(opts, "feed-limit", "50")),
+                Integer.parseInt(take(opts, "max-in-flight", "5000")),
+                Duration.ofSeconds(Long.parseLong(take(opts, "timeout", "10"))));
+        if (!opts.isEmpty()) {
+            throw new IllegalArgumentException("Unknown option(s): " + opts.keySet());
+        }
+        if (config.rate <= 0 || config.posts < 1 || config.users < 1 || config.maxInFlight < 1) {
+            throw new IllegalArgumentException("--rate, --posts, --users and --max-in-flight must be positive");
+        }
+        return config;
+    }
+
+    private static String take(Map<String, String> opts, String name, String fallback) {
+        String value = opts.remove(name);
+        return value != null ? value : fallback;
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,231 @@
+package com.contoso.socialapp.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-model HTTP load generator for the posts, comments and likes endpoints.
+ * <p>
+ * Requests are started on a fixed schedule (Poisson or constant inter-arrival times) regardless of how
+ * fast the server answers, each on its own virtual thread. Latency is measured from the scheduled start
+ * rather than the actual send, so a stalled server shows up as queueing delay instead of silently
+ * lowering the offered load (coordinated omission).
+ */
+public final class LoadTest {
+
+    private static final Pattern POST_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final LoadConfig config;
+    private final HttpClient client;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final LongAdder dropped = new LongAdder();
+    private List<String> postIds;
+    private ZipfSampler hotPosts;
+
+    LoadTest(LoadConfig config, HttpClient client) {
+        this.config = config;
+        this.client = client;
+        for (Endpoint e : Endpoint.values()) {
+            stats.put(e, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        try (ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(config.timeout())
+                    .executor(httpExecutor)
+                    .build();
+            LoadTest test = new LoadTest(config, client);
+            test.preparePosts();
+            test.run();
+            test.report(System.out);
+        }
+    }
+
+    /** Collects up to {@code --posts} existing post IDs from the feed and creates whatever is missing. */
+    void preparePosts() throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>(config.posts());
+        String cursor = null;
+        do {
+            String query = "?limit=200" + (cursor != null ? "&cursor=" + cursor : "");
+            HttpResponse<String> res = client.send(get("/api/posts" + query), HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() != 200) {
+                throw new IOException("Listing posts failed with HTTP " + res.statusCode() + ": " + res.body());
+            }
+            Matcher m = POST_ID.matcher(res.body());
+            while (m.find() && ids.size() < config.posts()) {
+                ids.add(m.group(1));
+            }
+            cursor = res.headers().firstValue(NEXT_CURSOR_HEADER).orElse(null);
+        } while (cursor != null && ids.size() < config.posts());
+
+        int missing = config.posts() - ids.size();
+        if (missing > 0) {
+            System.out.printf("Creating %d posts...%n", missing);
+        }
+        for (int i = 0; i < missing; i++) {
+            HttpResponse<String> res = client.send(createPost(), HttpResponse.BodyHandlers.ofString());
+            Matcher m = POST_ID.matcher(res.body());
+            if (res.statusCode() != 201 || !m.find()) {
+                throw new IOException("Creating a post failed with HTTP " + res.statusCode() + ": " + res.body());
+            }
+            ids.add(m.group(1));
+        }
+        // Shuffle so the hottest Zipf ranks are not simply the newest posts
+        Collections.shuffle(ids);
+        postIds = ids;
+        hotPosts = config.zipfExponent() > 0 ? new ZipfSampler(ids.size(), config.zipfExponent()) : null;
+    }
+
+    void run() {
+        System.out.printf("Scenario %s at %.0f req/s (%s arrivals): %ds warmup, %ds measured, %d posts%n",
+                config.scenario().name(), config.rate(), config.poisson() ? "poisson" : "constant",
+                config.warmup().toSeconds(), config.duration().toSeconds(), postIds.size());
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        double meanIntervalNanos = 1e9 / config.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            double next = start;
+            while (next < end) {
+                long intended = (long) next;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                boolean measured = intended >= measureFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) dropped.increment();
+                } else {
+                    workers.execute(() -> {
+                        try {
+                            issue(config.scenario().next(), intended, measured);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                next += config.poisson()
+                        ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos
+                        : meanIntervalNanos;
+            }
+        }
+    }
+
+    private void issue(Endpoint endpoint, long intendedStart, boolean measured) {
+        String reason = null;
+        try {
+            HttpResponse<Void> res = client.send(request(endpoint), HttpResponse.BodyHandlers.discarding());
+            if (res.statusCode() / 100 != 2) reason = String.valueOf(res.statusCode());
+        } catch (HttpTimeoutException e) {
+            reason = "timeout";
+        } catch (IOException e) {
+            reason = "io";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reason = "interrupted";
+        }
+        if (!measured) return;
+        long micros = (System.nanoTime() - intendedStart) / 1_000;
+        EndpointStats s = stats.get(endpoint);
+        if (reason == null) s.success(micros);
+        else s.failure(micros, reason);
+    }
+
+    private HttpRequest request(Endpoint endpoint) {
+        String post = "/api/posts/" + pickPost();
+        return switch (endpoint) {
+            case FEED -> get("/api/posts?limit=" + config.feedLimit());
+            case GET_POST -> get(post);
+            case CREATE_POST -> createPost();
+            case LIST_COMMENTS -> get(post + "/comments");
+            case CREATE_COMMENT -> post(post + "/comments",
+                    "{\"username\":\"" + pickUser() + "\",\"content\":\"Load test comment\"}");
+            case LIKE -> post(post + "/likes", "{\"username\":\"" + pickUser() + "\"}");
+            case UNLIKE -> builder(post + "/likes").header("x-username", pickUser()).DELETE().build();
+        };
+    }
+
+    private String pickPost() {
+        int i = hotPosts != null ? hotPosts.next() : ThreadLocalRandom.current().nextInt(postIds.size());
+        return postIds.get(i);
+    }
+
+    private String pickUser() {
+        return "loaduser-" + ThreadLocalRandom.current().nextInt(config.users());
+    }
+
+    private HttpRequest createPost() {
+        return post("/api/posts", "{\"username\":\"" + pickUser() + "\",\"content\":\"Load test post\"}");
+    }
+
+    private HttpRequest get(String path) {
+        return builder(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return builder(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path)).timeout(config.timeout());
+    }
+
+    void report(PrintStream out) {
+        double seconds = config.duration().toNanos() / 1e9;
+        out.printf("%n%-32s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Map.Entry<Endpoint, EndpointStats> e : stats.entrySet()) {
+            EndpointStats s = e.getValue();
+            LatencyHistogram h = s.latency;
+            if (h.count() == 0) continue;
+            totalRequests += h.count();
+            totalErrors += s.errors();
+            out.printf("%-32s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n", e.getKey().label(),
+                    h.count(), s.errors(), h.count() / seconds,
+                    h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.max() / 1e3);
+        }
+        out.printf("%-32s %9d %8d %9.1f%n", "total", totalRequests, totalErrors, totalRequests / seconds);
+        if (dropped.sum() > 0) {
+            out.printf("%nDropped %d arrivals: more than %d requests in flight (client or server saturated)%n",
+                    dropped.sum(), config.maxInFlight());
+        }
+        stats.forEach((endpoint, s) -> {
+            if (s.errors() > 0) out.printf("Failures for %s: %s%n", endpoint.label(), s.failureSummary());
+        });
+    }
+}
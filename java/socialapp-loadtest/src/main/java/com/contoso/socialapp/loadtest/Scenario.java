@@ -0,0 +1,74 @@
+package com.contoso.socialapp.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted mix of endpoints. The built-in scenarios can be replaced with
+ * {@code --mix=feed:60,get_post:30,like:10}.
+ */
+public final class Scenario {
+
+    private final String name;
+    private final Endpoint[] endpoints;
+    private final double[] cumulative;
+
+    private Scenario(String name, Map<Endpoint, Integer> weights) {
+        this.name = name;
+        this.endpoints = weights.keySet().toArray(Endpoint[]::new);
+        this.cumulative = new double[endpoints.length];
+        double total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) throw new IllegalArgumentException("Scenario '" + name + "' has no positive weights");
+        double sum = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            sum += weights.get(endpoints[i]) / total;
+            cumulative[i] = sum;
+        }
+    }
+
+    public static Scenario named(String name) {
+        return switch (name) {
+            case "read-heavy" -> new Scenario(name, weights(
+                    Endpoint.FEED, 60, Endpoint.GET_POST, 25, Endpoint.LIST_COMMENTS, 10,
+                    Endpoint.LIKE, 3, Endpoint.CREATE_COMMENT, 2));
+            case "like-storm" -> new Scenario(name, weights(
+                    Endpoint.LIKE, 70, Endpoint.UNLIKE, 20, Endpoint.GET_POST, 10));
+            case "comment-burst" -> new Scenario(name, weights(
+                    Endpoint.CREATE_COMMENT, 70, Endpoint.LIST_COMMENTS, 25, Endpoint.GET_POST, 5));
+            default -> throw new IllegalArgumentException("Unknown scenario: " + name
+                    + " (expected read-heavy, like-storm or comment-burst)");
+        };
+    }
+
+    /** Parses {@code endpoint:weight} pairs separated by commas. */
+    public static Scenario parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Invalid mix entry: " + part);
+            weights.merge(Endpoint.parse(kv[0]), Integer.parseInt(kv[1].trim()), Integer::sum);
+        }
+        return new Scenario("custom", weights);
+    }
+
+    public Endpoint next() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) return endpoints[i];
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    public String name() {
+        return name;
+    }
+
+    private static Map<Endpoint, Integer> weights(Object... pairs) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (int i = 0; i < pairs.length; i += 2) {
+            weights.put((Endpoint) pairs[i], (Integer) pairs[i + 1]);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,32 @@
+package com.contoso.socialapp.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^s}, so a few
+ * "hot" items receive most of the traffic. Uses a precomputed CDF and binary search.
+ */
+public final class ZipfSampler {
+
+    private final double[] cdf;
+
+    public ZipfSampler(int n, double exponent) {
+        if (n < 1) throw new IllegalArgumentException("n must be positive");
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public int next() {
+        int i = Arrays.binarySearch(cdf, ThreadLocalRandom.current().nextDouble());
+        int rank = i >= 0 ? i : -i - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
@@ -1,6 +1,8 @@
 package com.contoso.socialapp.config;
 
+import com.contoso.socialapp.model.CursorPage;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -12,6 +14,8 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins("*")
                 .allowedMethods("GET","POST","PATCH","DELETE")
                 .allowedHeaders("*")
+                .exposedHeaders(CursorPage.NEXT_CURSOR_HEADER, HttpHeaders.ETAG,
+                        QueryStatsFilter.QUERY_COUNT_HEADER, QueryStatsFilter.QUERY_TIME_HEADER)
                 .allowCredentials(false);
     }
 }
@@ -1,25 +1,48 @@
 package com.contoso.socialapp.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 
 @Configuration
+@EnableConfigurationProperties(SqliteProperties.class)
+@RequiredArgsConstructor
 public class DatabaseConfig {
 
-    @Value("${app.sqlite.path:sns_api.db}")
-    private String dbPath;
+    private final SqliteProperties properties;
 
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.sqlite.JDBC");
-        dataSource.setUrl("jdbc:sqlite:" + dbPath);
-        return dataSource;
+    public DataSource dataSource(MeterRegistry registry,
+                                 @Value("${app.query-stats.enabled:true}") boolean countQueries) {
+        DataSource dataSource = pooledDataSource(registry);
+        return countQueries ? new QueryCountingDataSource(dataSource) : dataSource;
+    }
+
+    private DataSource pooledDataSource(MeterRegistry registry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("sqlite");
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + properties.getPath());
+        config.setMaximumPoolSize(properties.getPool().getMaximumSize());
+        config.setMinimumIdle(properties.getPool().getMinimumIdle());
+        config.setConnectionTimeout(properties.getPool().getConnectionTimeout().toMillis());
+        // Passed to the driver on every connect, so PRAGMAs such as foreign_keys hold on all pooled connections
+        config.setDataSourceProperties(properties.getPragmas().toDriverProperties());
+        HikariDataSource pool = new HikariDataSource(config);
+        SqliteProperties.Bulkhead bulkhead = properties.getBulkhead();
+        if (!bulkhead.isEnabled()) {
+            return pool;
+        }
+        int permits = bulkhead.getMaxConcurrent() > 0 ? bulkhead.getMaxConcurrent() : properties.getPool().getMaximumSize();
+        return new BulkheadDataSource(pool, permits, bulkhead.getAcquireTimeout(), registry);
     }
 
     @Bean
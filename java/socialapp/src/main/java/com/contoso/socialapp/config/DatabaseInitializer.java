@@ -1,22 +1,44 @@
 package com.contoso.socialapp.config;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // schema must exist before other runners load state from it
 @RequiredArgsConstructor
 public class DatabaseInitializer implements CommandLineRunner {
 
+    // user_version once every migration below has run: 1 normalized ISO text, 2 epoch millis, 3 BLOB IDs
+    private static final int SCHEMA_VERSION = 3;
+
     private final JdbcTemplate jdbcTemplate;
 
     @Override
     public void run(String... args) throws Exception {
-    // Ensure foreign key constraints are enforced (SQLite off by default per-connection)
-    jdbcTemplate.execute("PRAGMA foreign_keys=ON");
+        // foreign_keys and the other per-connection PRAGMAs are applied by the pool (see DatabaseConfig)
         migrateIfNeeded();
+        normalizeTimestamps();
+        addCounterColumns();
+        convertTimestampsToEpochMillis();
+        convertIdsToBlobs();
+        createIndexes();
+        createCounterTriggers();
+        createUserStats();
+        createSearchIndex();
     }
 
     private void migrateIfNeeded() {
@@ -24,6 +46,8 @@ public class DatabaseInitializer implements CommandLineRunner {
         var tables = jdbcTemplate.query("SELECT name FROM sqlite_master WHERE type='table' AND name='posts'", (rs, rn) -> rs.getString(1));
         if (tables.isEmpty()) {
             createSchema();
+            // A fresh schema already has the current layout, so none of the data migrations apply
+            jdbcTemplate.execute("PRAGMA user_version = " + SCHEMA_VERSION);
             return;
         }
         // Inspect columns
@@ -42,17 +66,7 @@ public class DatabaseInitializer implements CommandLineRunner {
             if (!(existing.contains("username") && existing.contains("post_id") && existing.contains("updated_at"))) {
                 // Drop legacy comments table and recreate
                 jdbcTemplate.execute("DROP TABLE comments");
-                jdbcTemplate.execute("""
-                    CREATE TABLE comments (
-                        id TEXT PRIMARY KEY,
-                        post_id TEXT NOT NULL,
-                        username TEXT NOT NULL,
-                        content TEXT NOT NULL,
-                        created_at TEXT NOT NULL,
-                        updated_at TEXT NOT NULL,
-                        FOREIGN KEY(post_id) REFERENCES posts(id) ON DELETE CASCADE
-                    )
-                """);
+                jdbcTemplate.execute(commentsTable("comments"));
             }
         }
 
@@ -63,48 +77,330 @@ public class DatabaseInitializer implements CommandLineRunner {
             boolean needsRebuild = !(likeCols.contains("post_id") && likeCols.contains("username") && likeCols.contains("liked_at"));
             if (needsRebuild) {
                 jdbcTemplate.execute("DROP TABLE likes");
+                jdbcTemplate.execute(likesTable("likes"));
+            }
+        }
+    }
+
+    private void normalizeTimestamps() {
+        Integer version = jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class);
+        if (version != null && version >= 1) return;
+        // Older rows hold OffsetDateTime#toString values whose width varies with the fraction digits.
+        // Rewrite them to the fixed-width form TimeProvider emits so text order equals time order.
+        jdbcTemplate.update("""
+            UPDATE posts SET
+                created_at = COALESCE(strftime('%Y-%m-%dT%H:%M:%fZ', created_at), created_at),
+                updated_at = COALESCE(strftime('%Y-%m-%dT%H:%M:%fZ', updated_at), updated_at)
+        """);
+        jdbcTemplate.update("""
+            UPDATE comments SET
+                created_at = COALESCE(strftime('%Y-%m-%dT%H:%M:%fZ', created_at), created_at),
+                updated_at = COALESCE(strftime('%Y-%m-%dT%H:%M:%fZ', updated_at), updated_at)
+        """);
+        jdbcTemplate.update("UPDATE likes SET liked_at = COALESCE(strftime('%Y-%m-%dT%H:%M:%fZ', liked_at), liked_at)");
+        jdbcTemplate.execute("PRAGMA user_version = 1");
+    }
+
+    private void convertTimestampsToEpochMillis() {
+        Integer version = jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class);
+        if (version != null && version >= 2) return;
+        rebuildTables(2, List.of(),
+                "SELECT id, username, content, %s, %s, likes_count, comments_count FROM posts"
+                        .formatted(epochMillis("created_at"), epochMillis("updated_at")),
+                "SELECT id, post_id, username, content, %s, %s FROM comments"
+                        .formatted(epochMillis("created_at"), epochMillis("updated_at")),
+                "SELECT post_id, username, %s FROM likes".formatted(epochMillis("liked_at")));
+    }
+
+    private void convertIdsToBlobs() {
+        Integer version = jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class);
+        if (version != null && version >= SCHEMA_VERSION) return;
+        // Text UUIDs become their 16 raw bytes. Rows whose key is not a UUID could never be addressed again, so
+        // they are moved as they are into <table>_quarantine tables for someone to inspect or repair by hand.
+        String postsSkipped = "NOT COALESCE(%s, 0)".formatted(isUuid("id"));
+        String commentsSkipped = "NOT COALESCE(%s AND %s, 0)".formatted(isUuid("id"), isUuid("post_id"));
+        String likesSkipped = "NOT COALESCE(%s, 0)".formatted(isUuid("post_id"));
+        Integer posts = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts WHERE " + postsSkipped, Integer.class);
+        Integer comments = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comments WHERE " + commentsSkipped, Integer.class);
+        Integer likes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE " + likesSkipped, Integer.class);
+        List<String> quarantine = new ArrayList<>();
+        if (posts + comments + likes > 0) {
+            log.warn("Converting IDs to BLOBs quarantines rows keyed by something other than a UUID: {} posts, {} comments, {} likes",
+                    posts, comments, likes);
+            quarantine.addAll(quarantine("posts", postsSkipped));
+            quarantine.addAll(quarantine("comments", commentsSkipped));
+            quarantine.addAll(quarantine("likes", likesSkipped));
+        }
+        rebuildTables(3, quarantine,
+                "SELECT %s, username, content, created_at, updated_at, likes_count, comments_count FROM posts WHERE %s"
+                        .formatted(uuidBytes("id"), isUuid("id")),
+                "SELECT %s, %s, username, content, created_at, updated_at FROM comments WHERE %s AND %s"
+                        .formatted(uuidBytes("id"), uuidBytes("post_id"), isUuid("id"), isUuid("post_id")),
+                "SELECT %s, username, liked_at FROM likes WHERE %s".formatted(uuidBytes("post_id"), isUuid("post_id")));
+    }
+
+    /**
+     * Rewrites posts, comments and likes into the current table layout, copying each through the given
+     * SELECT (columns in table order), and sets user_version in the same transaction. The {@code before}
+     * statements run first in that transaction, against the old tables. Column types can
+     * only change by rebuilding (SQLite's create-copy-drop-rename procedure). Foreign keys must be off
+     * while posts is swapped out, or dropping it would cascade into comments and likes; the PRAGMA is
+     * per connection and ignored inside a transaction, hence the dedicated connection.
+     */
+    private void rebuildTables(int version, List<String> before, String postsSelect, String commentsSelect, String likesSelect) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (Statement st = con.createStatement()) {
+                boolean foreignKeys;
+                try (ResultSet rs = st.executeQuery("PRAGMA foreign_keys")) {
+                    foreignKeys = rs.next() && rs.getInt(1) == 1;
+                }
+                st.execute("PRAGMA foreign_keys = OFF");
+                boolean autoCommit = con.getAutoCommit();
+                con.setAutoCommit(false);
+                try {
+                    for (String sql : before) {
+                        st.execute(sql);
+                    }
+                    st.execute(postsTable("posts_rebuild"));
+                    st.execute(commentsTable("comments_rebuild"));
+                    st.execute(likesTable("likes_rebuild"));
+                    st.execute("INSERT INTO posts_rebuild " + postsSelect);
+                    st.execute("INSERT INTO comments_rebuild " + commentsSelect);
+                    st.execute("INSERT INTO likes_rebuild " + likesSelect);
+                    // Indexes and triggers go with the old tables and are recreated by the later steps. The
+                    // search index refers to rows by rowid, which the copy renumbers, so it is rebuilt too.
+                    st.execute("DROP TABLE IF EXISTS posts_fts");
+                    st.execute("DROP TABLE IF EXISTS comments_fts");
+                    st.execute("DROP TABLE likes");
+                    st.execute("DROP TABLE comments");
+                    st.execute("DROP TABLE posts");
+                    st.execute("ALTER TABLE posts_rebuild RENAME TO posts");
+                    st.execute("ALTER TABLE comments_rebuild RENAME TO comments");
+                    st.execute("ALTER TABLE likes_rebuild RENAME TO likes");
+                    // Rows the copy skipped may have been counted; recount, and let createUserStats backfill afresh
+                    st.execute("""
+                        UPDATE posts SET
+                            likes_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = posts.id),
+                            comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = posts.id)
+                    """);
+                    st.execute("DROP TABLE IF EXISTS user_stats");
+                    try (ResultSet rs = st.executeQuery("PRAGMA foreign_key_check")) {
+                        if (rs.next()) {
+                            throw new SQLException("Foreign key violation in " + rs.getString(1) + " after migrating to schema version " + version);
+                        }
+                    }
+                    st.execute("PRAGMA user_version = " + version);
+                    con.commit();
+                } catch (SQLException | RuntimeException e) {
+                    con.rollback();
+                    throw e;
+                } finally {
+                    con.setAutoCommit(autoCommit);
+                    st.execute("PRAGMA foreign_keys = " + (foreignKeys ? "ON" : "OFF"));
+                }
+            }
+            return null;
+        });
+    }
+
+    private static String uuidBytes(String column) {
+        return "unhex(replace(%s, '-', ''))".formatted(column);
+    }
+
+    // The canonical 8-4-4-4-12 form; 32 hex digits with the dashes elsewhere are not a UUID
+    private static String isUuid(String column) {
+        return ("length(%1$s) = 36 AND substr(%1$s, 9, 1) = '-' AND substr(%1$s, 14, 1) = '-'"
+                + " AND substr(%1$s, 19, 1) = '-' AND substr(%1$s, 24, 1) = '-' AND length(%2$s) = 16")
+                .formatted(column, uuidBytes(column));
+    }
+
+    // Appends the matching rows, unchanged, to <table>_quarantine, created with the table's current columns
+    private static List<String> quarantine(String table, String where) {
+        return List.of(
+                "CREATE TABLE IF NOT EXISTS %1$s_quarantine AS SELECT * FROM %1$s WHERE 0".formatted(table),
+                "INSERT INTO %1$s_quarantine SELECT * FROM %1$s WHERE %2$s".formatted(table, where));
+    }
+
+    // Exact milliseconds from the normalized ISO text; unparseable legacy values sort as the oldest rows
+    private static String epochMillis(String column) {
+        return "COALESCE(CAST(strftime('%%s', %1$s) AS INTEGER) * 1000 + CAST(substr(strftime('%%f', %1$s), 4, 3) AS INTEGER), 0)"
+                .formatted(column);
+    }
+
+    private void addCounterColumns() {
+        var columns = jdbcTemplate.query("PRAGMA table_info(posts)", (RowMapper<String>) (rs, rn) -> rs.getString("name"));
+        if (columns.contains("likes_count") && columns.contains("comments_count")) return;
+        if (!columns.contains("likes_count")) {
+            jdbcTemplate.execute("ALTER TABLE posts ADD COLUMN likes_count INTEGER NOT NULL DEFAULT 0");
+        }
+        if (!columns.contains("comments_count")) {
+            jdbcTemplate.execute("ALTER TABLE posts ADD COLUMN comments_count INTEGER NOT NULL DEFAULT 0");
+        }
+        // One-time backfill; from here on the triggers below keep the counters exact
+        jdbcTemplate.update("""
+            UPDATE posts SET
+                likes_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = posts.id),
+                comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = posts.id)
+        """);
+    }
+
+    private void createCounterTriggers() {
+        // Triggers run inside the writing statement's transaction, so every insert/delete path
+        // (including ON DELETE CASCADE and ignored duplicate likes) keeps the counters exact
+        jdbcTemplate.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_likes_count_insert AFTER INSERT ON likes BEGIN
+                UPDATE posts SET likes_count = likes_count + 1 WHERE id = NEW.post_id;
+            END
+        """);
+        jdbcTemplate.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_likes_count_delete AFTER DELETE ON likes BEGIN
+                UPDATE posts SET likes_count = likes_count - 1 WHERE id = OLD.post_id;
+            END
+        """);
+        jdbcTemplate.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_comments_count_insert AFTER INSERT ON comments BEGIN
+                UPDATE posts SET comments_count = comments_count + 1 WHERE id = NEW.post_id;
+            END
+        """);
+        jdbcTemplate.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_comments_count_delete AFTER DELETE ON comments BEGIN
+                UPDATE posts SET comments_count = comments_count - 1 WHERE id = OLD.post_id;
+            END
+        """);
+    }
+
+    // Per-user post and comment totals, kept by triggers like the per-post counters so a profile is one primary-key read
+    private void createUserStats() {
+        var existing = jdbcTemplate.query("SELECT name FROM sqlite_master WHERE type='table' AND name='user_stats'",
+                (rs, rn) -> rs.getString(1));
+        if (existing.isEmpty()) {
+            jdbcTemplate.execute("""
+                CREATE TABLE user_stats (
+                    username TEXT PRIMARY KEY NOT NULL,
+                    posts_count INTEGER NOT NULL DEFAULT 0,
+                    comments_count INTEGER NOT NULL DEFAULT 0
+                ) WITHOUT ROWID
+            """);
+            jdbcTemplate.update("""
+                INSERT INTO user_stats (username, posts_count, comments_count)
+                SELECT username, SUM(is_post), SUM(1 - is_post) FROM (
+                    SELECT username, 1 AS is_post FROM posts
+                    UNION ALL
+                    SELECT username, 0 FROM comments
+                ) GROUP BY username
+            """);
+        }
+        for (String table : new String[]{"posts", "comments"}) {
+            jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_user_%1$s_insert AFTER INSERT ON %1$s BEGIN
+                    INSERT INTO user_stats (username, %1$s_count) VALUES (NEW.username, 1)
+                    ON CONFLICT(username) DO UPDATE SET %1$s_count = %1$s_count + 1;
+                END
+            """.formatted(table));
+            jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_user_%1$s_delete AFTER DELETE ON %1$s BEGIN
+                    UPDATE user_stats SET %1$s_count = %1$s_count - 1 WHERE username = OLD.username;
+                END
+            """.formatted(table));
+        }
+    }
+
+    /**
+     * FTS5 indexes over post and comment content. They are external-content tables: the text lives only in
+     * posts/comments and the index maps tokens to their rowids, kept in step by the triggers below on every
+     * write path (including ON DELETE CASCADE). A newly created index is backfilled with 'rebuild'.
+     * Note that VACUUM may renumber the rowids of these tables; run 'rebuild' afterwards if it is ever used.
+     */
+    private void createSearchIndex() {
+        for (String table : new String[]{"posts", "comments"}) {
+            String fts = table + "_fts";
+            var existing = jdbcTemplate.query("SELECT name FROM sqlite_master WHERE type='table' AND name=?",
+                    (rs, rn) -> rs.getString(1), fts);
+            if (existing.isEmpty()) {
                 jdbcTemplate.execute("""
-                    CREATE TABLE likes (
-                        post_id TEXT NOT NULL,
-                        username TEXT NOT NULL,
-                        liked_at TEXT NOT NULL,
-                        PRIMARY KEY(post_id, username),
-                        FOREIGN KEY(post_id) REFERENCES posts(id) ON DELETE CASCADE
+                    CREATE VIRTUAL TABLE %1$s USING fts5(
+                        content, content='%2$s', content_rowid='rowid', tokenize='unicode61 remove_diacritics 2'
                     )
-                """);
+                """.formatted(fts, table));
+                jdbcTemplate.execute("INSERT INTO %1$s(%1$s) VALUES ('rebuild')".formatted(fts));
             }
+            jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_%2$s_insert AFTER INSERT ON %1$s BEGIN
+                    INSERT INTO %2$s(rowid, content) VALUES (NEW.rowid, NEW.content);
+                END
+            """.formatted(table, fts));
+            jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_%2$s_delete AFTER DELETE ON %1$s BEGIN
+                    INSERT INTO %2$s(%2$s, rowid, content) VALUES ('delete', OLD.rowid, OLD.content);
+                END
+            """.formatted(table, fts));
+            // Only content edits touch the index; the frequent counter updates on posts do not fire this
+            jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_%2$s_update AFTER UPDATE OF content ON %1$s BEGIN
+                    INSERT INTO %2$s(%2$s, rowid, content) VALUES ('delete', OLD.rowid, OLD.content);
+                    INSERT INTO %2$s(rowid, content) VALUES (NEW.rowid, NEW.content);
+                END
+            """.formatted(table, fts));
         }
     }
 
+    private void createIndexes() {
+        // Matches the feed sort key so keyset pages are an index range scan, not a scan + sort
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_posts_created_at ON posts(created_at DESC, id DESC)");
+        // Comment pages seek to (post_id, after) and read forward; also serves the ON DELETE CASCADE lookup
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_comments_post_created ON comments(post_id, created_at, id)");
+        // Startup rebuild of the trending counters reads only the most recent window of likes and comments
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_likes_liked_at ON likes(liked_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_comments_created_at ON comments(created_at)");
+        // Per-user timelines: the equality on username plus the keyset bound is one range of each index
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_posts_username_created ON posts(username, created_at DESC, id DESC)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_comments_username_created ON comments(username, created_at DESC, id DESC)");
+    }
+
     private void createSchema() {
-        jdbcTemplate.execute("""
-            CREATE TABLE IF NOT EXISTS posts (
-                id TEXT PRIMARY KEY,
+        jdbcTemplate.execute(postsTable("posts"));
+        jdbcTemplate.execute(commentsTable("comments"));
+        jdbcTemplate.execute(likesTable("likes"));
+    }
+
+    // IDs are 16-byte UUID BLOBs and timestamps INTEGER epoch milliseconds; the API renders both as text (see Ids, Timestamps)
+    private static String postsTable(String name) {
+        return """
+            CREATE TABLE IF NOT EXISTS %s (
+                id BLOB PRIMARY KEY NOT NULL,
                 username TEXT NOT NULL,
                 content TEXT NOT NULL,
-                created_at TEXT NOT NULL,
-                updated_at TEXT NOT NULL
+                created_at INTEGER NOT NULL,
+                updated_at INTEGER NOT NULL,
+                likes_count INTEGER NOT NULL DEFAULT 0,
+                comments_count INTEGER NOT NULL DEFAULT 0
             )
-        """);
-        jdbcTemplate.execute("""
-            CREATE TABLE IF NOT EXISTS comments (
-                id TEXT PRIMARY KEY,
-                post_id TEXT NOT NULL,
+        """.formatted(name);
+    }
+
+    private static String commentsTable(String name) {
+        return """
+            CREATE TABLE IF NOT EXISTS %s (
+                id BLOB PRIMARY KEY NOT NULL,
+                post_id BLOB NOT NULL,
                 username TEXT NOT NULL,
                 content TEXT NOT NULL,
-                created_at TEXT NOT NULL,
-                updated_at TEXT NOT NULL,
+                created_at INTEGER NOT NULL,
+                updated_at INTEGER NOT NULL,
                 FOREIGN KEY(post_id) REFERENCES posts(id) ON DELETE CASCADE
             )
-        """);
-        jdbcTemplate.execute("""
-            CREATE TABLE IF NOT EXISTS likes (
-                post_id TEXT NOT NULL,
+        """.formatted(name);
+    }
+
+    private static String likesTable(String name) {
+        return """
+            CREATE TABLE IF NOT EXISTS %s (
+                post_id BLOB NOT NULL,
                 username TEXT NOT NULL,
-                liked_at TEXT NOT NULL,
+                liked_at INTEGER NOT NULL,
                 PRIMARY KEY(post_id, username),
                 FOREIGN KEY(post_id) REFERENCES posts(id) ON DELETE CASCADE
             )
-        """);
+        """.formatted(name);
     }
 }
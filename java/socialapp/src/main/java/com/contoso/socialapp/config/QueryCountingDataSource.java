@@ -0,0 +1,84 @@
+package com.contoso.socialapp.config;
+
+import com.contoso.socialapp.repository.QueryStats;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every statement execution and records it in the {@link QueryStats} bound to the calling thread.
+ * Threads without bound stats (startup, background flushes) pass straight through apart from the proxy
+ * hop. Only the execute calls are timed; rows fetched afterwards by a streaming read are not.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    // Lets the container shut down the wrapped data source
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Connection counting(Connection con) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(con, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> counting((Statement) result, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> counting((Statement) result, CallableStatement.class, (String) args[0]);
+                        case "createStatement" -> counting((Statement) result, Statement.class, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    private static Object counting(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        return Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    QueryStats stats = QueryStats.current();
+                    if (stats == null || !method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    // Plain statements carry their SQL in the execute call
+                    String sql = preparedSql != null ? preparedSql
+                            : args != null && args.length > 0 && args[0] instanceof String s ? s : "<batch>";
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        stats.record(sql, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.contoso.socialapp.config;
+
+import com.contoso.socialapp.repository.QueryStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the statements each request executed: {@code X-Query-Count} and {@code X-Query-Time-Ms} response
+ * headers, per-endpoint metrics, and a warning when one statement shape repeats more than
+ * {@code app.query-stats.repeat-threshold} times (the usual N+1 signature). Headers are written just before
+ * the body, so statements a streaming response runs after its first byte are only in the metrics.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "app.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    private final MeterRegistry registry;
+    private final int repeatThreshold;
+
+    public QueryStatsFilter(MeterRegistry registry, @Value("${app.query-stats.repeat-threshold:10}") int repeatThreshold) {
+        this.registry = registry;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.begin();
+        StatsHeaderResponse wrapped = new StatsHeaderResponse(response, stats);
+        try {
+            filterChain.doFilter(request, wrapped);
+        } finally {
+            QueryStats.end();
+            if (!response.isCommitted()) wrapped.writeHeaders();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("Statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(stats.statements());
+        Timer.builder("http.server.requests.query.time")
+                .description("Time spent executing statements per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(stats.nanos(), TimeUnit.NANOSECONDS);
+        stats.repeatedShapes(repeatThreshold).forEach((shape, count) ->
+                log.warn("{} {} executed the same statement {} times (possible N+1): {}",
+                        request.getMethod(), uri, count, shape));
+    }
+
+    // Adds the headers the moment the body is first touched, while they can still be set
+    private static final class StatsHeaderResponse extends HttpServletResponseWrapper {
+        private final QueryStats stats;
+        private boolean written;
+
+        StatsHeaderResponse(HttpServletResponse response, QueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void writeHeaders() {
+            if (written) return;
+            written = true;
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(QUERY_COUNT_HEADER, Integer.toString(stats.statements()));
+            response.setHeader(QUERY_TIME_HEADER, String.format(Locale.ROOT, "%.3f", stats.nanos() / 1e6));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+    }
+}
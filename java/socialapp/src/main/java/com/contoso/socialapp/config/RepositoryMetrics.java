@@ -0,0 +1,135 @@
+package com.contoso.socialapp.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Times every public method of the {@code @Repository} beans as {@code repository.calls}, tagged with the
+ * repository, the method, the outcome and the exception class, and records the rows each call returned,
+ * streamed or updated as {@code repository.rows}. Histogram buckets and their range are configured with
+ * the other distribution settings in application.properties.
+ * <p>
+ * Meters are resolved once per method and kept in a map, so a call costs two clock reads and a couple of
+ * counter increments.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    @Around("within(com.contoso.socialapp.repository..*) && @within(org.springframework.stereotype.Repository)")
+    public Object record(ProceedingJoinPoint call) throws Throwable {
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        MethodMeters m = meters.get(method);
+        if (m == null) m = meters.computeIfAbsent(method, this::metersFor);
+
+        Object[] args = call.getArgs();
+        RowCounter streamed = null;
+        if (m.sinkArg >= 0 && args[m.sinkArg] instanceof Consumer<?> sink) {
+            streamed = new RowCounter(sink);
+            args[m.sinkArg] = streamed;
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call.proceed(args);
+        } catch (Throwable e) {
+            m.failure(e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        m.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        long rows = streamed != null ? streamed.rows : rowCount(result);
+        if (rows >= 0) m.rows.record(rows);
+        return result;
+    }
+
+    // Rows read (collections, optionals) or affected (update counts); -1 when the result says nothing about rows
+    private static long rowCount(Object result) {
+        if (result instanceof Collection<?> c) return c.size();
+        if (result instanceof Optional<?> o) return o.isPresent() ? 1 : 0;
+        if (result instanceof Integer n) return n;
+        return -1;
+    }
+
+    private MethodMeters metersFor(Method method) {
+        String repository = method.getDeclaringClass().getSimpleName();
+        int sinkArg = -1;
+        Class<?>[] params = method.getParameterTypes();
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == Consumer.class) sinkArg = i;
+        }
+        return new MethodMeters(registry, repository, method.getName(), sinkArg);
+    }
+
+    private static final class MethodMeters {
+        private final MeterRegistry registry;
+        private final String repository;
+        private final String method;
+        private final int sinkArg;
+        private final Timer success;
+        private final DistributionSummary rows;
+        private final Map<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+        MethodMeters(MeterRegistry registry, String repository, String method, int sinkArg) {
+            this.registry = registry;
+            this.repository = repository;
+            this.method = method;
+            this.sinkArg = sinkArg;
+            this.success = timer("success", "none");
+            this.rows = DistributionSummary.builder("repository.rows")
+                    .description("Rows returned, streamed or affected per repository call")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(registry);
+        }
+
+        Timer failure(Throwable e) {
+            return failures.computeIfAbsent(e.getClass(), type -> timer("error", type.getSimpleName()));
+        }
+
+        private Timer timer(String outcome, String exception) {
+            return Timer.builder("repository.calls")
+                    .description("Latency of repository method calls")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(registry);
+        }
+    }
+
+    // Counts rows as a streaming method hands them to the caller's sink; only touched by the calling thread
+    private static final class RowCounter implements Consumer<Object> {
+        private final Consumer<Object> sink;
+        private long rows;
+
+        @SuppressWarnings("unchecked")
+        RowCounter(Consumer<?> sink) {
+            this.sink = (Consumer<Object>) sink;
+        }
+
+        @Override
+        public void accept(Object row) {
+            rows++;
+            sink.accept(row);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.contoso.socialapp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Properties;
+
+@Data
+@ConfigurationProperties(prefix = "app.sqlite")
+public class SqliteProperties {
+
+    private String path = "sns_api.db";
+    private Pool pool = new Pool();
+    private Pragmas pragmas = new Pragmas();
+    private Writer writer = new Writer();
+    private Bulkhead bulkhead = new Bulkhead();
+
+    @Data
+    public static class Pool {
+        private int maximumSize = 8;
+        private int minimumIdle = 2;
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+    }
+
+    /** Group-commit settings for {@code SqliteWriter}. */
+    @Data
+    public static class Writer {
+        private boolean enabled = true;
+        private Duration commitWindow = Duration.ofMillis(2);
+        private int maxBatchSize = 256;
+        private int queueCapacity = 10_000;
+        private Duration enqueueTimeout = Duration.ofSeconds(1);
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    /** Caps concurrent database access when requests run on virtual threads (see {@code BulkheadDataSource}). */
+    @Data
+    public static class Bulkhead {
+        private boolean enabled = false;
+        private int maxConcurrent = 0; // 0 = pool.maximum-size
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+    }
+
+    /** PRAGMAs applied by sqlite-jdbc to every physical connection the pool opens. */
+    @Data
+    public static class Pragmas {
+        private boolean foreignKeys = true;
+        private String journalMode = "WAL";
+        private String synchronous = "NORMAL";
+        private Duration busyTimeout = Duration.ofSeconds(5);
+        private int cacheSize = -16000; // negative = KiB per connection
+
+        Properties toDriverProperties() {
+            Properties p = new Properties();
+            p.setProperty("foreign_keys", String.valueOf(foreignKeys));
+            p.setProperty("journal_mode", journalMode);
+            p.setProperty("synchronous", synchronous);
+            p.setProperty("busy_timeout", String.valueOf(busyTimeout.toMillis()));
+            p.setProperty("cache_size", String.valueOf(cacheSize));
+            return p;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.dto.BatchItemResult;
+import com.contoso.socialapp.dto.ErrorResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Shared handling for the batch endpoints: each item is validated on its own with the same DTO constraints as
+ * the single-item endpoint, the valid ones are written together, and every item gets its own result.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchRequests {
+
+    private final Validator validator;
+
+    @Value("${app.batch.max-items:500}")
+    private int maxItems;
+
+    /**
+     * Validates {@code items} and passes the valid ones, in request order, to {@code write}, which returns one
+     * created value per item it was given, or empty when the batch as a whole cannot be applied (for example
+     * because the parent post does not exist).
+     */
+    public <T, R> Optional<List<BatchItemResult<R>>> process(List<T> items, Function<List<T>, Optional<List<R>>> write) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("A batch must contain at least one item");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxItems + " items");
+        }
+        List<BatchItemResult<R>> results = new ArrayList<>(items.size());
+        List<T> valid = new ArrayList<>(items.size());
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ErrorResponse error = validate(items.get(i));
+            if (error != null) {
+                results.add(new BatchItemResult<>(i, HttpStatus.BAD_REQUEST.value(), null, error));
+            } else {
+                valid.add(items.get(i));
+                validIndexes.add(i);
+            }
+        }
+        if (!valid.isEmpty()) {
+            Optional<List<R>> created = write.apply(valid);
+            if (created.isEmpty()) return Optional.empty();
+            for (int i = 0; i < valid.size(); i++) {
+                results.add(new BatchItemResult<>(validIndexes.get(i), HttpStatus.CREATED.value(), created.get().get(i), null));
+            }
+            results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+        }
+        return Optional.of(results);
+    }
+
+    // Same shape as GlobalExceptionHandler's response for an invalid single-item body
+    private ErrorResponse validate(Object item) {
+        ErrorResponse error = new ErrorResponse();
+        error.setError("VALIDATION_ERROR");
+        error.setMessage("The request body is invalid");
+        if (item == null) {
+            error.setDetails(List.of("item must not be null"));
+            return error;
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) return null;
+        error.setDetails(violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .toList());
+        return error;
+    }
+}
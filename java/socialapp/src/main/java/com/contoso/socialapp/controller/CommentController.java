@@ -2,14 +2,19 @@ package com.contoso.socialapp.controller;
 
 import com.contoso.socialapp.dto.*;
 import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.StreamedPage;
 import com.contoso.socialapp.service.CommentService;
 import com.contoso.socialapp.service.PostService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,25 +25,70 @@ public class CommentController {
 
     private final CommentService commentService;
     private final PostService postService;
+    private final JsonArrayStreamer streamer;
+    private final BatchRequests batchRequests;
 
     @GetMapping
-    public ResponseEntity<?> list(@PathVariable String postId) {
-        if (postService.getPost(postId).isEmpty()) {
+    public ResponseEntity<?> list(@PathVariable String postId,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String after,
+                                  WebRequest request, HttpServletResponse response) throws IOException {
+        if (!postService.mightExist(postId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(error("NOT_FOUND", "Post not found"));
         }
-        List<Comment> comments = commentService.list(postId);
-        return ResponseEntity.ok(comments);
+        String etag = commentService.listEtag(postId, after, limit);
+        if (request.checkNotModified(etag)) {
+            return null; // 304 sent without loading any comment
+        }
+        if (commentService.isStreaming()) {
+            // The status is committed before the first row, so confirm the post up front
+            if (!postService.exists(postId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(error("NOT_FOUND", "Post not found"));
+            }
+            StreamedPage<Comment> page = commentService.stream(postId, after, limit);
+            if (page.getNextCursor() != null) {
+                response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            streamer.write(response, Comment.class, page::forEach);
+            return null; // body already written
+        }
+        CursorPage<Comment> page = commentService.list(postId, after, limit);
+        // Comments cascade with their post, so only an empty page needs the existence probe
+        if (page.getItems().isEmpty() && !postService.exists(postId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(error("NOT_FOUND", "Post not found"));
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag);
+        if (page.getNextCursor() != null) {
+            ok.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return ok.body(page.getItems());
     }
 
     @PostMapping
     public ResponseEntity<?> create(@PathVariable String postId, @Validated @RequestBody NewCommentRequest req) {
-        if (postService.getPost(postId).isEmpty()) {
+        if (!postService.mightExist(postId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(error("NOT_FOUND", "Post not found"));
+        }
+        return commentService.create(postId, req)
+                .<ResponseEntity<?>>map(c -> ResponseEntity.status(HttpStatus.CREATED).body(c))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(error("NOT_FOUND", "Post not found")));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBatch(@PathVariable String postId, @RequestBody List<NewCommentRequest> reqs) {
+        if (!postService.mightExist(postId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(error("NOT_FOUND", "Post not found"));
         }
-        Comment c = commentService.create(postId, req);
-        return ResponseEntity.status(HttpStatus.CREATED).body(c);
+        return batchRequests.process(reqs, valid -> commentService.createAll(postId, valid))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(error("NOT_FOUND", "Post not found")));
     }
 
     @GetMapping("/{commentId}")
@@ -0,0 +1,43 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.service.EventBus;
+import com.contoso.socialapp.service.PostService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventController {
+
+    private final EventBus eventBus;
+    private final EventStreamer streamer;
+    private final PostService postService;
+
+    // Errors carry no body: the client asked for text/event-stream, which an ErrorResponse cannot be written as
+    @GetMapping
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) String postId) {
+        if (postId != null && !postService.mightExist(postId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        EventBus.Subscription subscription;
+        try {
+            subscription = eventBus.subscribe(postId);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no") // stop reverse proxies from buffering the stream
+                .body(streamer.stream(subscription));
+    }
+}
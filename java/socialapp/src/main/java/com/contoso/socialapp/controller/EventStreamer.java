@@ -0,0 +1,66 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.model.FeedEvent;
+import com.contoso.socialapp.service.EventBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Writes a subscription to the client as Server-Sent Events. Each stream is drained by its own virtual thread,
+ * which parks while the buffer is empty, so an open connection costs a small heap footprint rather than a
+ * platform thread. A comment line is sent when the stream has been idle for {@code app.events.heartbeat},
+ * which keeps proxies from closing it and detects clients that have gone away.
+ */
+@Component
+public class EventStreamer {
+
+    private final ThreadFactory threads = Thread.ofVirtual().name("event-stream-", 0).factory();
+
+    @Value("${app.events.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${app.events.timeout:30m}")
+    private Duration timeout;
+
+    public SseEmitter stream(EventBus.Subscription subscription) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        threads.newThread(() -> drain(subscription, emitter)).start();
+        return emitter;
+    }
+
+    private void drain(EventBus.Subscription subscription, SseEmitter emitter) {
+        try {
+            // Sent before any event so clients and proxies see the stream open right away
+            emitter.send(SseEmitter.event().comment("connected"));
+            while (subscription.isOpen()) {
+                FeedEvent event = subscription.poll(heartbeat);
+                if (event != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.getId()))
+                            .name(event.getType())
+                            .data(event.getData(), MediaType.APPLICATION_JSON));
+                } else if (subscription.isOpen()) {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                }
+            }
+            // Evicted or shutting down: end the response so the client reconnects
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // The client disconnected or the emitter already completed; the container finishes the request
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } finally {
+            subscription.close();
+        }
+    }
+}
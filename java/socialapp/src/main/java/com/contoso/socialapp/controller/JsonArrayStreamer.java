@@ -0,0 +1,47 @@
+package com.contoso.socialapp.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows as a JSON array straight to the response while they are read, so memory per request
+ * stays constant and the first bytes go out as soon as the first row is mapped. Once the body has
+ * started the status is committed; a failure part-way through leaves the array unterminated.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonArrayStreamer {
+
+    private final ObjectMapper objectMapper;
+
+    public <T> void write(HttpServletResponse response, Class<T> type, Consumer<Consumer<T>> rows) throws IOException {
+        // Without this the writer flushes the socket after every row
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT, false);
+            gen.writeStartArray();
+            rows.accept(row -> {
+                try {
+                    writer.writeValue(gen, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gen.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
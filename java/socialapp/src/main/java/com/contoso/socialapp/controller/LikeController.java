@@ -2,7 +2,6 @@ package com.contoso.socialapp.controller;
 
 import com.contoso.socialapp.dto.ErrorResponse;
 import com.contoso.socialapp.dto.LikeRequest;
-import com.contoso.socialapp.dto.LikeResponse;
 import com.contoso.socialapp.service.LikeService;
 import com.contoso.socialapp.service.PostService;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +10,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/posts/{postId}/likes")
 @RequiredArgsConstructor
@@ -18,21 +19,36 @@ public class LikeController {
 
     private final LikeService likeService;
     private final PostService postService;
+    private final BatchRequests batchRequests;
 
     @PostMapping
     public ResponseEntity<?> like(@PathVariable String postId, @Validated @RequestBody LikeRequest req) {
-        if (postService.getPost(postId).isEmpty()) {
+        if (!postService.mightExist(postId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(error("NOT_FOUND", "Post not found"));
         }
-        LikeResponse resp = likeService.like(postId, req);
-        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+        return likeService.like(postId, req)
+                .<ResponseEntity<?>>map(resp -> ResponseEntity.status(HttpStatus.CREATED).body(resp))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(error("NOT_FOUND", "Post not found")));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> likeBatch(@PathVariable String postId, @RequestBody List<LikeRequest> reqs) {
+        if (!postService.mightExist(postId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(error("NOT_FOUND", "Post not found"));
+        }
+        return batchRequests.process(reqs, valid -> likeService.likeAll(postId, valid))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(error("NOT_FOUND", "Post not found")));
     }
 
     @DeleteMapping
     public ResponseEntity<?> unlike(@PathVariable String postId,
                                     @RequestHeader(value = "x-username", required = false) String username) {
-        if (postService.getPost(postId).isEmpty()) {
+        if (!postService.mightExist(postId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(error("NOT_FOUND", "Post not found"));
         }
@@ -40,7 +56,11 @@ public class LikeController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(error("VALIDATION_ERROR", "Username header 'x-username' is required to unlike a post"));
         }
-        likeService.unlike(postId, username);
+        // A removed like proves the post exists; only a no-op delete needs the probe
+        if (!likeService.unlike(postId, username) && !postService.exists(postId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(error("NOT_FOUND", "Post not found"));
+        }
         return ResponseEntity.noContent().build();
     }
 
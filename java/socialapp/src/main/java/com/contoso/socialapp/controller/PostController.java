@@ -1,15 +1,21 @@
 package com.contoso.socialapp.controller;
 
 import com.contoso.socialapp.dto.*;
+import com.contoso.socialapp.model.CursorPage;
 import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.model.StreamedPage;
 import com.contoso.socialapp.service.PostService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -18,11 +24,27 @@ import java.util.stream.Collectors;
 public class PostController {
 
     private final PostService postService;
+    private final JsonArrayStreamer streamer;
+    private final BatchRequests batchRequests;
 
     @GetMapping
-    public ResponseEntity<List<Post>> list() {
-        List<Post> posts = postService.listPosts();
-        return ResponseEntity.ok(posts);
+    public ResponseEntity<?> list(@RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String cursor,
+                                  HttpServletResponse response) throws IOException {
+        if (postService.isStreaming()) {
+            StreamedPage<Post> page = postService.streamPosts(cursor, limit);
+            if (page.getNextCursor() != null) {
+                response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            streamer.write(response, Post.class, page::forEach);
+            return null; // body already written
+        }
+        CursorPage<Post> page = postService.listPosts(cursor, limit);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            ok.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return ok.body(page.getItems());
     }
 
     @PostMapping
@@ -31,10 +53,30 @@ public class PostController {
         return ResponseEntity.status(HttpStatus.CREATED).body(p);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult<Post>>> createBatch(@RequestBody List<NewPostRequest> reqs) {
+        return ResponseEntity.ok(batchRequests.process(reqs, valid -> Optional.of(postService.createAll(valid))).orElseThrow());
+    }
+
+    // Literal paths, so they win over /{postId}
+    @GetMapping("/lookup")
+    public ResponseEntity<PostLookupResponse> lookup(@RequestParam List<String> ids) {
+        return ResponseEntity.ok(postService.getPosts(ids));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<Post>> trending(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(postService.trending(limit));
+    }
+
     @GetMapping("/{postId}")
-    public ResponseEntity<?> get(@PathVariable String postId) {
+    public ResponseEntity<?> get(@PathVariable String postId, WebRequest request) {
+        String etag = postService.etag(postId);
+        if (request.checkNotModified(etag)) {
+            return null; // 304 sent without touching the cache or database
+        }
         return postService.getPost(postId)
-                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .<ResponseEntity<?>>map(p -> ResponseEntity.ok().eTag(etag).body(p))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(error("NOT_FOUND", "Post not found")));
     }
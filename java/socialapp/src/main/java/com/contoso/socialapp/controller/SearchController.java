@@ -0,0 +1,34 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.SearchHit;
+import com.contoso.socialapp.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(@RequestParam(required = false) String q,
+                                                  @RequestParam(defaultValue = "posts") String type,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String cursor) {
+        CursorPage<SearchHit> page = searchService.search(q, type, limit, cursor);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            ok.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return ok.body(page.getItems());
+    }
+}
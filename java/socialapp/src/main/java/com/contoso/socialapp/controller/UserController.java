@@ -0,0 +1,51 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.model.UserProfile;
+import com.contoso.socialapp.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users/{username}")
+@RequiredArgsConstructor
+public class UserController {
+
+    private final UserService userService;
+
+    @GetMapping
+    public ResponseEntity<UserProfile> profile(@PathVariable String username) {
+        return ResponseEntity.ok(userService.profile(username));
+    }
+
+    @GetMapping("/posts")
+    public ResponseEntity<List<Post>> posts(@PathVariable String username,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String cursor) {
+        return page(userService.listPosts(username, cursor, limit));
+    }
+
+    @GetMapping("/comments")
+    public ResponseEntity<List<Comment>> comments(@PathVariable String username,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String cursor) {
+        return page(userService.listComments(username, cursor, limit));
+    }
+
+    private static <T> ResponseEntity<List<T>> page(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            ok.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return ok.body(page.getItems());
+    }
+}
@@ -0,0 +1,14 @@
+package com.contoso.socialapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** Outcome of one item of a batch request; exactly one of {@code data} and {@code error} is set. */
+@Data
+@AllArgsConstructor
+public class BatchItemResult<T> {
+    private int index;   // position in the request array
+    private int status;  // HTTP status the item would have had as a single request
+    private T data;
+    private ErrorResponse error;
+}
@@ -0,0 +1,14 @@
+package com.contoso.socialapp.dto;
+
+import com.contoso.socialapp.model.Post;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PostLookupResponse {
+    private List<Post> posts;     // found posts, in request order
+    private List<String> missing; // requested IDs with no post, in request order
+}
@@ -0,0 +1,35 @@
+package com.contoso.socialapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> items;
+    private String nextCursor; // null on the last page
+
+    /** The page size for a request's {@code limit}: the default when absent, capped at {@code max}. */
+    public static int pageSize(Integer limit, int defaultSize, int max) {
+        if (limit == null) return defaultSize;
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+        return Math.min(limit, max);
+    }
+
+    /**
+     * Builds a page from a query that fetched {@code limit + 1} rows; the extra row only
+     * signals that another page exists and is dropped from the result.
+     */
+    public static <T> CursorPage<T> fromOverfetch(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+}
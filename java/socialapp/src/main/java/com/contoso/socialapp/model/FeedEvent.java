@@ -0,0 +1,19 @@
+package com.contoso.socialapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** One change delivered on the live event stream; {@code data} is the created post, comment or like. */
+@Data
+@AllArgsConstructor
+public class FeedEvent {
+    public static final String POST_CREATED = "post.created";
+    public static final String COMMENT_CREATED = "comment.created";
+    public static final String LIKE_ADDED = "like.added";
+    public static final String LIKE_REMOVED = "like.removed";
+
+    private long id;        // increases with every published event
+    private String type;
+    private String postId;  // the post the event belongs to, used for per-post subscriptions
+    private Object data;
+}
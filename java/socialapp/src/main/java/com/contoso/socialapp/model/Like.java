@@ -0,0 +1,12 @@
+package com.contoso.socialapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class Like {
+    private String postId;   // liked post UUID
+    private String username; // who liked it
+    private String likedAt;
+}
@@ -0,0 +1,41 @@
+package com.contoso.socialapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position (created_at, id) of the last row on a page.
+ * Clients only ever see the opaque base64url form produced by {@link #encode()}.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+    private String createdAt;
+    private String id;
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The cursor a request parameter carries, or null (first page) when it is absent or blank. */
+    public static PageCursor fromParam(String token) {
+        return token == null || token.isBlank() ? null : decode(token);
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep <= 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(raw.substring(0, sep), raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
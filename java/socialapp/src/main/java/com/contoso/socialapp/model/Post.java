@@ -11,4 +11,16 @@ public class Post {
     private String updatedAt;
     private int likesCount;
     private int commentsCount;
+
+    public Post copy() {
+        Post p = new Post();
+        p.setId(id);
+        p.setUsername(username);
+        p.setContent(content);
+        p.setCreatedAt(createdAt);
+        p.setUpdatedAt(updatedAt);
+        p.setLikesCount(likesCount);
+        p.setCommentsCount(commentsCount);
+        return p;
+    }
 }
@@ -0,0 +1,14 @@
+package com.contoso.socialapp.model;
+
+import lombok.Data;
+
+@Data
+public class SearchHit {
+    private String type;      // "post" or "comment"
+    private String id;        // post or comment UUID
+    private String postId;    // the post itself, or the comment's parent
+    private String username;
+    private String snippet;   // HTML-escaped excerpt with matches wrapped in <mark>
+    private String createdAt;
+    private double score;     // bm25 relevance, higher is better
+}
@@ -0,0 +1,23 @@
+package com.contoso.socialapp.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Consumer;
+
+/**
+ * A page whose rows are not materialized: {@link #forEach} runs the query and hands each row to the
+ * sink while the JDBC cursor is open. The next cursor is known up front so it can go in a header
+ * before the body starts.
+ */
+@RequiredArgsConstructor
+public class StreamedPage<T> {
+
+    @Getter
+    private final String nextCursor; // null on the last page
+    private final Consumer<Consumer<T>> rows;
+
+    public void forEach(Consumer<T> sink) {
+        rows.accept(sink);
+    }
+}
@@ -0,0 +1,14 @@
+package com.contoso.socialapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfile {
+    private String username;
+    private long postsCount;
+    private long commentsCount;
+}
@@ -1,15 +1,23 @@
 package com.contoso.socialapp.repository;
 
 import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 @Repository
 @RequiredArgsConstructor
@@ -17,36 +25,120 @@ public class CommentRepository {
 
     private final JdbcTemplate jdbc;
 
+    @Value("${app.streaming.fetch-size:64}")
+    private int fetchSize;
+
     private final RowMapper<Comment> rowMapper = (ResultSet rs, int rowNum) -> {
         Comment c = new Comment();
-        c.setId(rs.getString("id"));
-        c.setPostId(rs.getString("post_id"));
+        c.setId(Ids.toText(rs.getBytes("id")));
+        c.setPostId(Ids.toText(rs.getBytes("post_id")));
         c.setUsername(rs.getString("username"));
         c.setContent(rs.getString("content"));
-        c.setCreatedAt(rs.getString("created_at"));
-        c.setUpdatedAt(rs.getString("updated_at"));
+        c.setCreatedAt(Timestamps.toIso(rs.getLong("created_at")));
+        c.setUpdatedAt(Timestamps.toIso(rs.getLong("updated_at")));
         return c;
     };
 
-    public List<Comment> findByPost(String postId) {
-        return jdbc.query("SELECT * FROM comments WHERE post_id=? ORDER BY datetime(created_at) ASC", rowMapper, postId);
+    // Keyset page, oldest first, served by idx_comments_post_created; pass limit + 1 to detect a following page
+    public List<Comment> findPage(String postId, PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT * FROM comments WHERE post_id=? ORDER BY created_at, id LIMIT ?", rowMapper, Ids.toBytes(postId), limit);
+        }
+        return jdbc.query("SELECT * FROM comments WHERE post_id=? AND (created_at, id) > (?, ?) ORDER BY created_at, id LIMIT ?",
+                rowMapper, Ids.toBytes(postId), Timestamps.toMillis(after.getCreatedAt()), Ids.toBytes(after.getId()), limit);
+    }
+
+    // One author's comments across all posts, newest first; served by idx_comments_username_created
+    public List<Comment> findPageByUser(String username, PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT * FROM comments WHERE username=? ORDER BY created_at DESC, id DESC LIMIT ?",
+                    rowMapper, username, limit);
+        }
+        return jdbc.query("SELECT * FROM comments WHERE username=? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?",
+                rowMapper, username, Timestamps.toMillis(after.getCreatedAt()), Ids.toBytes(after.getId()), limit);
+    }
+
+    // Key of the last comment on the page, or empty if nothing follows it; reads only the index
+    public Optional<PageCursor> findPageEnd(String postId, PageCursor after, int limit) {
+        RowMapper<PageCursor> keyMapper = (rs, rn) -> new PageCursor(Timestamps.toIso(rs.getLong(1)), Ids.toText(rs.getBytes(2)));
+        List<PageCursor> keys = after == null
+                ? jdbc.query("SELECT created_at, id FROM comments WHERE post_id=? ORDER BY created_at, id LIMIT 2 OFFSET ?",
+                        keyMapper, Ids.toBytes(postId), limit - 1)
+                : jdbc.query("SELECT created_at, id FROM comments WHERE post_id=? AND (created_at, id) > (?, ?) ORDER BY created_at, id LIMIT 2 OFFSET ?",
+                        keyMapper, Ids.toBytes(postId), Timestamps.toMillis(after.getCreatedAt()), Ids.toBytes(after.getId()), limit - 1);
+        return keys.size() == 2 ? Optional.of(keys.get(0)) : Optional.empty();
+    }
+
+    // Streams the comments after {@code after} up to and including {@code through} (to the end when null)
+    public void streamRange(String postId, PageCursor after, PageCursor through, Consumer<Comment> sink) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM comments WHERE post_id=?");
+        List<Object> args = new ArrayList<>(5);
+        args.add(Ids.toBytes(postId));
+        if (after != null) {
+            sql.append(" AND (created_at, id) > (?, ?)");
+            args.add(Timestamps.toMillis(after.getCreatedAt()));
+            args.add(Ids.toBytes(after.getId()));
+        }
+        if (through != null) {
+            sql.append(" AND (created_at, id) <= (?, ?)");
+            args.add(Timestamps.toMillis(through.getCreatedAt()));
+            args.add(Ids.toBytes(through.getId()));
+        }
+        sql.append(" ORDER BY created_at, id");
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(rowMapper.mapRow(rs, rs.getRow())));
     }
 
     public Optional<Comment> findById(String postId, String commentId) {
-        List<Comment> list = jdbc.query("SELECT * FROM comments WHERE id=? AND post_id=?", rowMapper, commentId, postId);
+        List<Comment> list = jdbc.query("SELECT * FROM comments WHERE id=? AND post_id=?", rowMapper, Ids.toBytes(commentId), Ids.toBytes(postId));
         return list.stream().findFirst();
     }
 
-    public void insert(Comment comment) {
-        jdbc.update("INSERT INTO comments (id, post_id, username, content, created_at, updated_at) VALUES (?,?,?,?,?,?)",
-                comment.getId(), comment.getPostId(), comment.getUsername(), comment.getContent(), comment.getCreatedAt(), comment.getUpdatedAt());
+    // The parent check is folded into the insert; returns false (nothing written) when the post does not exist
+    public boolean insert(Comment comment) {
+        return jdbc.update("""
+                INSERT INTO comments (id, post_id, username, content, created_at, updated_at)
+                SELECT ?,?,?,?,?,? WHERE EXISTS (SELECT 1 FROM posts WHERE id=?)
+                """,
+                Ids.toBytes(comment.getId()), Ids.toBytes(comment.getPostId()), comment.getUsername(), comment.getContent(),
+                Timestamps.toMillis(comment.getCreatedAt()), Timestamps.toMillis(comment.getUpdatedAt()),
+                Ids.toBytes(comment.getPostId())) > 0;
+    }
+
+    // Batched form of insert; returns the number of comments written, 0 when their post does not exist
+    public int insertAll(List<Comment> comments) {
+        int[][] counts = jdbc.batchUpdate("""
+                INSERT INTO comments (id, post_id, username, content, created_at, updated_at)
+                SELECT ?,?,?,?,?,? WHERE EXISTS (SELECT 1 FROM posts WHERE id=?)
+                """, comments, 500, (ps, comment) -> {
+            ps.setBytes(1, Ids.toBytes(comment.getId()));
+            ps.setBytes(2, Ids.toBytes(comment.getPostId()));
+            ps.setString(3, comment.getUsername());
+            ps.setString(4, comment.getContent());
+            ps.setLong(5, Timestamps.toMillis(comment.getCreatedAt()));
+            ps.setLong(6, Timestamps.toMillis(comment.getUpdatedAt()));
+            ps.setBytes(7, Ids.toBytes(comment.getPostId()));
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
     }
 
     public int updateContent(String id, String content, String updatedAt) {
-        return jdbc.update("UPDATE comments SET content=?, updated_at=? WHERE id=?", content, updatedAt, id);
+        return jdbc.update("UPDATE comments SET content=?, updated_at=? WHERE id=?", content, Timestamps.toMillis(updatedAt), Ids.toBytes(id));
+    }
+
+    // Post ID and created_at in epoch millis of every comment in [from, to), for rebuilding in-memory counters
+    public void forEachCreatedBetween(long from, long to, ObjLongConsumer<String> consumer) {
+        jdbc.query("SELECT post_id, created_at FROM comments WHERE created_at >= ? AND created_at < ?",
+                (RowCallbackHandler) rs -> consumer.accept(Ids.toText(rs.getBytes(1)), rs.getLong(2)), from, to);
     }
 
     public int delete(String postId, String commentId) {
-        return jdbc.update("DELETE FROM comments WHERE id=? AND post_id=?", commentId, postId);
+        return jdbc.update("DELETE FROM comments WHERE id=? AND post_id=?", Ids.toBytes(commentId), Ids.toBytes(postId));
     }
 }
@@ -0,0 +1,52 @@
+package com.contoso.socialapp.repository;
+
+/**
+ * Post and comment IDs are stored as 16-byte BLOBs and exposed by the API in the canonical
+ * 36-character UUID text form; repositories convert at the boundary.
+ */
+public final class Ids {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Compares unequal to every stored 16-byte key, so a malformed ID simply matches nothing
+    private static final byte[] NO_MATCH = new byte[0];
+
+    private Ids() {
+    }
+
+    public static String toText(byte[] id) {
+        char[] out = new char[36];
+        int pos = 0;
+        for (int i = 0; i < 16; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) out[pos++] = '-';
+            out[pos++] = HEX[(id[i] >> 4) & 0xf];
+            out[pos++] = HEX[id[i] & 0xf];
+        }
+        return new String(out);
+    }
+
+    // Accepts only the canonical lowercase 8-4-4-4-12 form, exactly as TEXT keys used to match, so the
+    // string-keyed caches (PostCache, PostVersions, PostIdFilter) never see two spellings of one post.
+    // Anything else yields a key that matches no row.
+    public static byte[] toBytes(String id) {
+        if (id == null || id.length() != 36) return NO_MATCH;
+        byte[] out = new byte[16];
+        int pos = 0;
+        for (int i = 0; i < 16; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) {
+                if (id.charAt(pos++) != '-') return NO_MATCH;
+            }
+            int hi = hex(id.charAt(pos++));
+            int lo = hex(id.charAt(pos++));
+            if (hi < 0 || lo < 0) return NO_MATCH;
+            out[i] = (byte) (hi << 4 | lo);
+        }
+        return out;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+}
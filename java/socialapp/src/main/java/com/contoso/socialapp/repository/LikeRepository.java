@@ -1,26 +1,88 @@
 package com.contoso.socialapp.repository;
 
+import com.contoso.socialapp.model.Like;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
 @Repository
 @RequiredArgsConstructor
 public class LikeRepository {
 
     private final JdbcTemplate jdbc;
 
-    public void like(String postId, String username, String likedAt) {
-        try {
-            jdbc.update("INSERT INTO likes (post_id, username, liked_at) VALUES (?,?,?)", postId, username, likedAt);
-        } catch (DataIntegrityViolationException e) {
-            // idempotent: ignore if already exists
+    // Idempotent: a re-like inserts nothing, so the likes_count trigger does not fire either.
+    // Also inserts nothing when the post does not exist; callers tell the two apart only when this returns false.
+    public boolean like(String postId, String username, String likedAt) {
+        return jdbc.update("""
+                INSERT OR IGNORE INTO likes (post_id, username, liked_at)
+                SELECT ?,?,? WHERE EXISTS (SELECT 1 FROM posts WHERE id=?)
+                """, Ids.toBytes(postId), username, Timestamps.toMillis(likedAt), Ids.toBytes(postId)) > 0;
+    }
+
+    // Post ID and liked_at in epoch millis of every like in [from, to), for rebuilding in-memory counters
+    public void forEachLikedBetween(long from, long to, ObjLongConsumer<String> consumer) {
+        jdbc.query("SELECT post_id, liked_at FROM likes WHERE liked_at >= ? AND liked_at < ?",
+                (RowCallbackHandler) rs -> consumer.accept(Ids.toText(rs.getBytes(1)), rs.getLong(2)), from, to);
+    }
+
+    public boolean unlike(String postId, String username) {
+        return jdbc.update("DELETE FROM likes WHERE post_id=? AND username=?", Ids.toBytes(postId), username) > 0;
+    }
+
+    // Returns the likes actually inserted, in order (repeats and likes of missing posts insert nothing)
+    public List<Like> likeAll(List<Like> likes) {
+        int[][] counts = jdbc.batchUpdate("""
+                INSERT OR IGNORE INTO likes (post_id, username, liked_at)
+                SELECT ?,?,? WHERE EXISTS (SELECT 1 FROM posts WHERE id=?)
+                """, likes, 500, (ps, like) -> {
+            ps.setBytes(1, Ids.toBytes(like.getPostId()));
+            ps.setString(2, like.getUsername());
+            ps.setLong(3, Timestamps.toMillis(like.getLikedAt()));
+            ps.setBytes(4, Ids.toBytes(like.getPostId()));
+        });
+        // One update count per row, in batches of 500 in the order given
+        List<Like> inserted = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) inserted.add(likes.get(i));
+                i++;
+            }
         }
+        return inserted;
     }
 
-    public void unlike(String postId, String username) {
-        jdbc.update("DELETE FROM likes WHERE post_id=? AND username=?", postId, username);
+    public void unlikeAll(List<Like> likes) {
+        jdbc.batchUpdate("DELETE FROM likes WHERE post_id=? AND username=?", likes, 500, (ps, like) -> {
+            ps.setBytes(1, Ids.toBytes(like.getPostId()));
+            ps.setString(2, like.getUsername());
+        });
+    }
+
+    // Which of the given users currently have a stored like on the post
+    public Set<String> findLikers(String postId, Collection<String> usernames) {
+        Set<String> likers = new HashSet<>();
+        List<String> all = new ArrayList<>(usernames);
+        for (int from = 0; from < all.size(); from += 500) {
+            List<String> chunk = all.subList(from, Math.min(from + 500, all.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(Ids.toBytes(postId));
+            args.addAll(chunk);
+            likers.addAll(jdbc.queryForList("SELECT username FROM likes WHERE post_id=? AND username IN (" + placeholders + ")",
+                    String.class, args.toArray()));
+        }
+        return likers;
     }
 
 }
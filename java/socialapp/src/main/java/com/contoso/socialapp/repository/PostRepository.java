@@ -1,15 +1,23 @@
 package com.contoso.socialapp.repository;
 
+import com.contoso.socialapp.model.PageCursor;
 import com.contoso.socialapp.model.Post;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
@@ -17,45 +25,134 @@ public class PostRepository {
 
     private final JdbcTemplate jdbc;
 
+    @Value("${app.streaming.fetch-size:64}")
+    private int fetchSize;
+
     private final RowMapper<Post> rowMapper = (ResultSet rs, int rowNum) -> {
         Post p = new Post();
-        p.setId(rs.getString("id"));
+        p.setId(Ids.toText(rs.getBytes("id")));
         p.setUsername(rs.getString("username"));
         p.setContent(rs.getString("content"));
-        p.setCreatedAt(rs.getString("created_at"));
-        p.setUpdatedAt(rs.getString("updated_at"));
+        p.setCreatedAt(Timestamps.toIso(rs.getLong("created_at")));
+        p.setUpdatedAt(Timestamps.toIso(rs.getLong("updated_at")));
+        // Denormalized counters maintained by triggers on likes/comments (see DatabaseInitializer)
+        p.setLikesCount(rs.getInt("likes_count"));
+        p.setCommentsCount(rs.getInt("comments_count"));
         return p;
     };
 
-    public List<Post> findAll() {
-        return jdbc.query("SELECT * FROM posts ORDER BY datetime(created_at) DESC", rowMapper);
+    // Keyset page served by idx_posts_created_at; pass limit + 1 to detect a following page
+    public List<Post> findPage(PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT * FROM posts ORDER BY created_at DESC, id DESC LIMIT ?", rowMapper, limit);
+        }
+        return jdbc.query("SELECT * FROM posts WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?",
+                rowMapper, Timestamps.toMillis(after.getCreatedAt()), Ids.toBytes(after.getId()), limit);
+    }
+
+    // One author's posts, newest first; an index range scan over idx_posts_username_created with no sort
+    public List<Post> findPageByUser(String username, PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT * FROM posts WHERE username=? ORDER BY created_at DESC, id DESC LIMIT ?",
+                    rowMapper, username, limit);
+        }
+        return jdbc.query("SELECT * FROM posts WHERE username=? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?",
+                rowMapper, username, Timestamps.toMillis(after.getCreatedAt()), Ids.toBytes(after.getId()), limit);
+    }
+
+    /**
+     * Key of the last row of the page starting after {@code after}, or empty if no row follows it.
+     * Reads only idx_posts_created_at, so the next cursor is known before the page itself is streamed.
+     */
+    public Optional<PageCursor> findPageEnd(PageCursor after, int limit) {
+        RowMapper<PageCursor> keyMapper = (rs, rn) -> new PageCursor(Timestamps.toIso(rs.getLong(1)), Ids.toText(rs.getBytes(2)));
+        List<PageCursor> keys = after == null
+                ? jdbc.query("SELECT created_at, id FROM posts ORDER BY created_at DESC, id DESC LIMIT 2 OFFSET ?",
+                        keyMapper, limit - 1)
+                : jdbc.query("SELECT created_at, id FROM posts WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT 2 OFFSET ?",
+                        keyMapper, Timestamps.toMillis(after.getCreatedAt()), Ids.toBytes(after.getId()), limit - 1);
+        return keys.size() == 2 ? Optional.of(keys.get(0)) : Optional.empty();
+    }
+
+    /**
+     * Streams the posts after {@code after} down to and including {@code through} (to the end when null).
+     * Bounding by key rather than LIMIT keeps the page consistent with a cursor computed by {@link #findPageEnd}
+     * even if posts were added in between.
+     */
+    public void streamRange(PageCursor after, PageCursor through, Consumer<Post> sink) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM posts WHERE 1=1");
+        List<Object> args = new ArrayList<>(4);
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamps.toMillis(after.getCreatedAt()));
+            args.add(Ids.toBytes(after.getId()));
+        }
+        if (through != null) {
+            sql.append(" AND (created_at, id) >= (?, ?)");
+            args.add(Timestamps.toMillis(through.getCreatedAt()));
+            args.add(Ids.toBytes(through.getId()));
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(rowMapper.mapRow(rs, rs.getRow())));
     }
 
     public Optional<Post> findById(String id) {
-        List<Post> list = jdbc.query("SELECT * FROM posts WHERE id=?", rowMapper, id);
+        List<Post> list = jdbc.query("SELECT * FROM posts WHERE id=?", rowMapper, Ids.toBytes(id));
         return list.stream().findFirst();
     }
 
-    public void insert(Post post) {
-        jdbc.update("INSERT INTO posts (id, username, content, created_at, updated_at) VALUES (?,?,?,?,?)",
-                post.getId(), post.getUsername(), post.getContent(), post.getCreatedAt(), post.getUpdatedAt());
+    // One primary-key IN lookup per 500 IDs; rows come back in index order, not request order
+    public List<Post> findByIds(Collection<String> ids) {
+        List<Post> posts = new ArrayList<>(ids.size());
+        List<byte[]> keys = ids.stream().map(Ids::toBytes).toList();
+        for (int from = 0; from < keys.size(); from += 500) {
+            List<byte[]> chunk = keys.subList(from, Math.min(from + 500, keys.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            posts.addAll(jdbc.query("SELECT * FROM posts WHERE id IN (" + placeholders + ")", rowMapper, chunk.toArray()));
+        }
+        return posts;
     }
 
-    public int updateContent(String id, String content, String updatedAt) {
-        return jdbc.update("UPDATE posts SET content=?, updated_at=? WHERE id=?", content, updatedAt, id);
+    // Primary-key probe that never loads the row
+    public boolean existsById(String id) {
+        Integer found = jdbc.queryForObject("SELECT EXISTS(SELECT 1 FROM posts WHERE id=?)", Integer.class, Ids.toBytes(id));
+        return found != null && found == 1;
     }
 
-    public int delete(String id) {
-        return jdbc.update("DELETE FROM posts WHERE id=?", id);
+    public void forEachId(Consumer<String> consumer) {
+        jdbc.query("SELECT id FROM posts", (RowCallbackHandler) rs -> consumer.accept(Ids.toText(rs.getBytes(1))));
+    }
+
+    public void insert(Post post) {
+        jdbc.update("INSERT INTO posts (id, username, content, created_at, updated_at) VALUES (?,?,?,?,?)",
+                Ids.toBytes(post.getId()), post.getUsername(), post.getContent(),
+                Timestamps.toMillis(post.getCreatedAt()), Timestamps.toMillis(post.getUpdatedAt()));
     }
 
-    public int countLikes(String postId) {
-        Integer c = jdbc.queryForObject("SELECT COUNT(*) FROM likes WHERE post_id=?", Integer.class, postId);
-        return c == null ? 0 : c;
+    // One batched statement for the whole list; run it inside a single transaction (see SqliteWriter)
+    public void insertAll(List<Post> posts) {
+        jdbc.batchUpdate("INSERT INTO posts (id, username, content, created_at, updated_at) VALUES (?,?,?,?,?)",
+                posts, 500, (ps, post) -> {
+                    ps.setBytes(1, Ids.toBytes(post.getId()));
+                    ps.setString(2, post.getUsername());
+                    ps.setString(3, post.getContent());
+                    ps.setLong(4, Timestamps.toMillis(post.getCreatedAt()));
+                    ps.setLong(5, Timestamps.toMillis(post.getUpdatedAt()));
+                });
     }
 
-    public int countComments(String postId) {
-        Integer c = jdbc.queryForObject("SELECT COUNT(*) FROM comments WHERE post_id=?", Integer.class, postId);
-        return c == null ? 0 : c;
+    public int updateContent(String id, String content, String updatedAt) {
+        return jdbc.update("UPDATE posts SET content=?, updated_at=? WHERE id=?", content, Timestamps.toMillis(updatedAt), Ids.toBytes(id));
+    }
+
+    public int delete(String id) {
+        return jdbc.update("DELETE FROM posts WHERE id=?", Ids.toBytes(id));
     }
 }
@@ -0,0 +1,84 @@
+package com.contoso.socialapp.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Statements executed on behalf of one HTTP request, recorded by QueryCountingDataSource while the request
+ * is bound to the current thread. SqliteWriter rebinds the submitter's stats on the writer thread, so group
+ * committed writes are attributed to the request that issued them; that is also why the counters are atomic.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    // Keyed by the SQL text as prepared; folded into shapes only when a report is asked for
+    private final Map<String, AtomicInteger> bySql = new ConcurrentHashMap<>();
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    // Runs the action with {@code stats} bound to this thread, restoring whatever was bound before
+    public static <T> T bind(QueryStats stats, Supplier<T> action) {
+        QueryStats previous = CURRENT.get();
+        if (stats == previous) return action.get();
+        CURRENT.set(stats);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    public void record(String sql, long elapsedNanos) {
+        statements.incrementAndGet();
+        nanos.addAndGet(elapsedNanos);
+        bySql.computeIfAbsent(sql, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    public long nanos() {
+        return nanos.get();
+    }
+
+    /**
+     * Statement shapes executed more than {@code threshold} times, with their counts. Whitespace is collapsed
+     * and placeholder lists such as {@code IN (?,?,?)} are folded, so chunked queries count as one shape.
+     */
+    public Map<String, Integer> repeatedShapes(int threshold) {
+        if (statements.get() <= threshold) return Map.of();
+        Map<String, Integer> shapes = new LinkedHashMap<>();
+        bySql.forEach((sql, count) -> shapes.merge(shape(sql), count.get(), Integer::sum));
+        shapes.values().removeIf(count -> count <= threshold);
+        return shapes;
+    }
+
+    static String shape(String sql) {
+        String collapsed = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        return PLACEHOLDER_LIST.matcher(collapsed).replaceAll("?, ...");
+    }
+}
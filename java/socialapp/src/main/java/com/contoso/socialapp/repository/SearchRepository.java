@@ -0,0 +1,69 @@
+package com.contoso.socialapp.repository;
+
+import com.contoso.socialapp.model.SearchHit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * bm25-ranked matches from the FTS5 indexes (see DatabaseInitializer). The inner query ranks and pages the
+ * index alone; only the rows on the page are joined back to their table for the remaining columns.
+ * Snippets come back with matches between U+0002 and U+0003 so the caller can escape the text first.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SearchRepository {
+
+    public static final char MATCH_START = '\u0002';
+    public static final char MATCH_END = '\u0003';
+
+    private final JdbcTemplate jdbc;
+
+    private final RowMapper<SearchHit> postMapper = (rs, rowNum) -> {
+        SearchHit h = new SearchHit();
+        h.setType("post");
+        h.setId(Ids.toText(rs.getBytes("id")));
+        h.setPostId(h.getId());
+        h.setUsername(rs.getString("username"));
+        h.setSnippet(rs.getString("snippet"));
+        h.setCreatedAt(Timestamps.toIso(rs.getLong("created_at")));
+        h.setScore(-rs.getDouble("rank"));
+        return h;
+    };
+
+    private final RowMapper<SearchHit> commentMapper = (rs, rowNum) -> {
+        SearchHit h = new SearchHit();
+        h.setType("comment");
+        h.setId(Ids.toText(rs.getBytes("id")));
+        h.setPostId(Ids.toText(rs.getBytes("post_id")));
+        h.setUsername(rs.getString("username"));
+        h.setSnippet(rs.getString("snippet"));
+        h.setCreatedAt(Timestamps.toIso(rs.getLong("created_at")));
+        h.setScore(-rs.getDouble("rank"));
+        return h;
+    };
+
+    // {@code match} is an FTS5 query expression; callers must build it from quoted terms
+    public List<SearchHit> searchPosts(String match, int limit, int offset) {
+        return jdbc.query("""
+                SELECT p.id, p.username, p.created_at, f.snippet, f.rank
+                FROM (SELECT rowid, snippet(posts_fts, 0, char(2), char(3), '...', 24) AS snippet, rank
+                      FROM posts_fts WHERE posts_fts MATCH ? ORDER BY rank LIMIT ? OFFSET ?) f
+                JOIN posts p ON p.rowid = f.rowid
+                ORDER BY f.rank
+                """, postMapper, match, limit, offset);
+    }
+
+    public List<SearchHit> searchComments(String match, int limit, int offset) {
+        return jdbc.query("""
+                SELECT c.id, c.post_id, c.username, c.created_at, f.snippet, f.rank
+                FROM (SELECT rowid, snippet(comments_fts, 0, char(2), char(3), '...', 24) AS snippet, rank
+                      FROM comments_fts WHERE comments_fts MATCH ? ORDER BY rank LIMIT ? OFFSET ?) f
+                JOIN comments c ON c.rowid = f.rowid
+                ORDER BY f.rank
+                """, commentMapper, match, limit, offset);
+    }
+}
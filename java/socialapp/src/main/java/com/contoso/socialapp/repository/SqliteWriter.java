@@ -0,0 +1,222 @@
+package com.contoso.socialapp.repository;
+
+import com.contoso.socialapp.config.SqliteProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer stage for SQLite. Services hand write commands to this queue; one thread drains it and
+ * runs everything that arrives within a commit window in a single transaction (group commit), so
+ * concurrent writers never contend for SQLite's write lock. Each command runs under its own savepoint,
+ * so a failing command only fails its own caller. Callers are released once their batch has committed.
+ */
+@Slf4j
+@Component
+public class SqliteWriter implements SmartLifecycle {
+
+    private final SqliteProperties.Writer settings;
+    private final TransactionTemplate tx;
+    private final BlockingQueue<WriteCommand<?>> queue;
+    private final DistributionSummary batchSize;
+    private final Timer commitTimer;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+
+    public SqliteWriter(SqliteProperties properties, PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.settings = properties.getWriter();
+        this.tx = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.batchSize = DistributionSummary.builder("sqlite.writer.batch.size")
+                .description("Write commands committed per transaction")
+                .register(registry);
+        this.commitTimer = Timer.builder("sqlite.writer.commit")
+                .description("Time to execute and commit one write batch")
+                .register(registry);
+        registry.gauge("sqlite.writer.queue.depth", queue, BlockingQueue::size);
+    }
+
+    /**
+     * Runs the command in the next group commit and returns its result once the batch is durable. With the
+     * writer disabled the command still gets a transaction of its own, so a multi-statement or batched write
+     * is applied whole or not at all either way.
+     */
+    public <T> T execute(Supplier<T> command) {
+        if (Thread.currentThread() == writerThread) {
+            return command.get(); // already inside the batch transaction
+        }
+        if (!settings.isEnabled()) {
+            return inTransaction(command);
+        }
+        try {
+            return submit(command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    public void run(Runnable command) {
+        execute(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> command) {
+        WriteCommand<T> cmd = new WriteCommand<>(command);
+        if (!settings.isEnabled()) {
+            cmd.complete(() -> inTransaction(command));
+            return cmd.future;
+        }
+        boolean accepted;
+        try {
+            accepted = running && queue.offer(cmd, settings.getEnqueueTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            throw new RejectedExecutionException("Write queue is not accepting writes");
+        }
+        return cmd.future;
+    }
+
+    private <T> T inTransaction(Supplier<T> command) {
+        return tx.execute(status -> command.get());
+    }
+
+    private void drainLoop() {
+        List<WriteCommand<?>> batch = new ArrayList<>(settings.getMaxBatchSize());
+        long windowNanos = settings.getCommitWindow().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteCommand<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < settings.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    WriteCommand<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Treat as a shutdown request; whatever is already queued is still committed
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<WriteCommand<?>> batch) {
+        batchSize.record(batch.size());
+        try {
+            commitTimer.record(() -> tx.executeWithoutResult(status -> batch.forEach(cmd -> cmd.runIn(status))));
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} writes failed", batch.size(), e);
+            batch.forEach(cmd -> cmd.fail(e));
+            return;
+        }
+        batch.forEach(WriteCommand::publish);
+    }
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled()) return;
+        running = true;
+        writerThread = new Thread(this::drainLoop, "sqlite-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = writerThread;
+        if (t == null) return;
+        try {
+            t.join(settings.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Start before and stop after the web server so in-flight requests can still commit
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static final class WriteCommand<T> {
+        private final Supplier<T> action;
+        // The submitting request's statement counters, so group-committed writes are still attributed to it
+        private final QueryStats stats = QueryStats.current();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException error;
+
+        WriteCommand(Supplier<T> action) {
+            this.action = action;
+        }
+
+        void runIn(TransactionStatus status) {
+            Object savepoint = status.createSavepoint();
+            try {
+                result = QueryStats.bind(stats, action);
+            } catch (RuntimeException e) {
+                status.rollbackToSavepoint(savepoint);
+                error = e;
+            } finally {
+                status.releaseSavepoint(savepoint);
+            }
+        }
+
+        void complete(Supplier<T> inline) {
+            try {
+                future.complete(inline.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void publish() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        void fail(RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
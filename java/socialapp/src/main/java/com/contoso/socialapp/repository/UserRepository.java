@@ -0,0 +1,22 @@
+package com.contoso.socialapp.repository;
+
+import com.contoso.socialapp.model.UserProfile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class UserRepository {
+
+    private final JdbcTemplate jdbc;
+
+    // Totals maintained by the user_stats triggers; a username that never wrote anything has none
+    public UserProfile findProfile(String username) {
+        List<UserProfile> rows = jdbc.query("SELECT posts_count, comments_count FROM user_stats WHERE username=?",
+                (rs, rn) -> new UserProfile(username, rs.getLong(1), rs.getLong(2)), username);
+        return rows.isEmpty() ? new UserProfile(username, 0, 0) : rows.get(0);
+    }
+}
@@ -3,11 +3,19 @@ package com.contoso.socialapp.service;
 import com.contoso.socialapp.dto.NewCommentRequest;
 import com.contoso.socialapp.dto.UpdateCommentRequest;
 import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.FeedEvent;
+import com.contoso.socialapp.model.PageCursor;
+import com.contoso.socialapp.model.StreamedPage;
 import com.contoso.socialapp.repository.CommentRepository;
+import com.contoso.socialapp.repository.SqliteWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -16,26 +24,92 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final TimeProvider timeProvider;
+    private final IdGenerator idGenerator;
+    private final SqliteWriter sqliteWriter;
+    private final PostCache postCache;
+    private final PostVersions postVersions;
+    private final TrendingPosts trendingPosts;
+    private final EventBus eventBus;
+    private final FeedProjection feedProjection;
 
-    public List<Comment> list(String postId) {
-        return commentRepository.findByPost(postId);
+    @Value("${app.streaming.enabled:false}")
+    private boolean streaming;
+
+    @Value("${app.comments.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.comments.max-page-size:200}")
+    private int maxPageSize;
+
+    public CursorPage<Comment> list(String postId, String after, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        List<Comment> rows = commentRepository.findPage(postId, PageCursor.fromParam(after), size + 1);
+        return CursorPage.fromOverfetch(rows, size, c -> new PageCursor(c.getCreatedAt(), c.getId()));
+    }
+
+    public StreamedPage<Comment> stream(String postId, String after, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        PageCursor from = PageCursor.fromParam(after);
+        PageCursor end = commentRepository.findPageEnd(postId, from, size).orElse(null);
+        return new StreamedPage<>(end == null ? null : end.encode(), sink -> commentRepository.streamRange(postId, from, end, sink));
+    }
+
+    // Taken before the comments are loaded; see PostVersions. Each page is its own representation.
+    public String listEtag(String postId, String after, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        return postVersions.etag("c" + Integer.toString(Objects.hash(after, size), 36), postId);
+    }
+
+    public boolean isStreaming() {
+        return streaming;
     }
 
     public Optional<Comment> get(String postId, String commentId) {
         return commentRepository.findById(postId, commentId);
     }
 
-    public Comment create(String postId, NewCommentRequest req) {
+    // Empty when the post does not exist; the check rides along with the insert
+    public Optional<Comment> create(String postId, NewCommentRequest req) {
         Comment c = new Comment();
-        c.setId(java.util.UUID.randomUUID().toString());
+        c.setId(idGenerator.next());
         c.setPostId(postId);
         c.setUsername(req.getUsername());
         c.setContent(req.getContent());
         String now = timeProvider.nowIso();
         c.setCreatedAt(now);
         c.setUpdatedAt(now);
-        commentRepository.insert(c);
-        return c;
+        boolean inserted = sqliteWriter.execute(() -> commentRepository.insert(c));
+        if (!inserted) return Optional.empty();
+        postCache.invalidate(postId);
+        feedProjection.refresh(postId);
+        postVersions.bump(postId);
+        trendingPosts.recordComments(postId, 1);
+        eventBus.publish(FeedEvent.COMMENT_CREATED, postId, c);
+        return Optional.of(c);
+    }
+
+    // Empty when the post does not exist; otherwise every comment was written in one batched insert
+    public Optional<List<Comment>> createAll(String postId, List<NewCommentRequest> reqs) {
+        String now = timeProvider.nowIso();
+        List<Comment> comments = new ArrayList<>(reqs.size());
+        for (NewCommentRequest req : reqs) {
+            Comment c = new Comment();
+            c.setId(idGenerator.next());
+            c.setPostId(postId);
+            c.setUsername(req.getUsername());
+            c.setContent(req.getContent());
+            c.setCreatedAt(now);
+            c.setUpdatedAt(now);
+            comments.add(c);
+        }
+        int inserted = sqliteWriter.execute(() -> commentRepository.insertAll(comments));
+        if (inserted == 0) return Optional.empty();
+        postCache.invalidate(postId);
+        feedProjection.refresh(postId);
+        postVersions.bump(postId);
+        trendingPosts.recordComments(postId, inserted);
+        comments.forEach(c -> eventBus.publish(FeedEvent.COMMENT_CREATED, postId, c));
+        return Optional.of(comments);
     }
 
     public Optional<Comment> update(String postId, String commentId, UpdateCommentRequest req) {
@@ -46,13 +120,20 @@ public class CommentService {
             throw new IllegalArgumentException("Username mismatch");
         }
         String now = timeProvider.nowIso();
-        commentRepository.updateContent(commentId, req.getContent(), now);
+        sqliteWriter.execute(() -> commentRepository.updateContent(commentId, req.getContent(), now));
+        postVersions.bump(postId);
         c.setContent(req.getContent());
         c.setUpdatedAt(now);
         return Optional.of(c);
     }
 
     public boolean delete(String postId, String commentId) {
-        return commentRepository.delete(postId, commentId) > 0;
+        boolean deleted = sqliteWriter.execute(() -> commentRepository.delete(postId, commentId)) > 0;
+        if (deleted) {
+            postCache.invalidate(postId);
+            feedProjection.refresh(postId);
+            postVersions.bump(postId);
+        }
+        return deleted;
     }
 }
@@ -0,0 +1,187 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.model.FeedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fan-out of write events to live subscribers. Publishing never blocks the writer: events go onto
+ * one bounded queue and a dispatcher thread copies each into the bounded buffer of every matching subscriber.
+ * A subscriber whose buffer is full is evicted instead of holding the others back; its client reconnects and
+ * reloads. Events published while nobody is subscribed are not queued at all.
+ */
+@Slf4j
+@Component
+public class EventBus implements SmartLifecycle {
+
+    // Wakes a subscriber's reader once its subscription is closed; never handed out
+    private static final FeedEvent CLOSED = new FeedEvent(-1, "closed", null, null);
+
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final BlockingQueue<FeedEvent> events;
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Set<Subscription> firehose = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Set<Subscription>> byPost = new ConcurrentHashMap<>();
+    private final Counter evictions;
+    private final Counter dropped;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public EventBus(@Value("${app.events.max-subscribers:50000}") int maxSubscribers,
+                    @Value("${app.events.buffer-size:256}") int bufferSize,
+                    @Value("${app.events.queue-capacity:65536}") int queueCapacity,
+                    MeterRegistry registry) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.events = new ArrayBlockingQueue<>(queueCapacity);
+        this.evictions = Counter.builder("events.subscribers.evicted")
+                .description("Subscribers dropped because they fell a full buffer behind")
+                .register(registry);
+        this.dropped = Counter.builder("events.dropped")
+                .description("Events discarded because the dispatch queue was full")
+                .register(registry);
+        registry.gauge("events.subscribers", subscribers);
+    }
+
+    /** Called after the change has committed. */
+    public void publish(String type, String postId, Object data) {
+        if (!running || subscribers.get() == 0) return;
+        if (!events.offer(new FeedEvent(nextId.incrementAndGet(), type, postId, data))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Subscribes to every event, or only to those of one post when {@code postId} is not null.
+     *
+     * @throws RejectedExecutionException when {@code app.events.max-subscribers} streams are already open
+     */
+    public Subscription subscribe(String postId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new RejectedExecutionException("Too many open event streams");
+        }
+        Subscription s = new Subscription(postId, new ArrayBlockingQueue<>(bufferSize));
+        if (postId == null) {
+            firehose.add(s);
+        } else {
+            byPost.compute(postId, (id, set) -> {
+                Set<Subscription> subs = set != null ? set : ConcurrentHashMap.newKeySet();
+                subs.add(s);
+                return subs;
+            });
+        }
+        if (!running) s.close();
+        return s;
+    }
+
+    private void unsubscribe(Subscription s, boolean evicted) {
+        if (!s.closed.compareAndSet(false, true)) return;
+        if (s.postId == null) {
+            firehose.remove(s);
+        } else {
+            byPost.computeIfPresent(s.postId, (id, set) -> {
+                set.remove(s);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        subscribers.decrementAndGet();
+        if (evicted) {
+            evictions.increment();
+            s.buffer.clear();
+        }
+        s.buffer.offer(CLOSED);
+    }
+
+    private void dispatch() {
+        while (running) {
+            FeedEvent event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            deliver(event, firehose);
+            Set<Subscription> subs = byPost.get(event.getPostId());
+            if (subs != null) deliver(event, subs);
+        }
+    }
+
+    private void deliver(FeedEvent event, Set<Subscription> subs) {
+        for (Subscription s : subs) {
+            if (!s.buffer.offer(event)) {
+                log.debug("Evicting a slow event subscriber after {} undelivered events", bufferSize);
+                unsubscribe(s, true);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatch, "event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // Runs in the default phase, before the web server's graceful shutdown, so open streams end instead of
+    // holding it up until they time out
+    @Override
+    public void stop() {
+        if (!running) return;
+        running = false;
+        dispatcher.interrupt();
+        firehose.forEach(s -> unsubscribe(s, false));
+        byPost.values().forEach(set -> set.forEach(s -> unsubscribe(s, false)));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** One subscriber's buffered events; read by a single consumer. */
+    public final class Subscription implements AutoCloseable {
+        private final String postId;
+        private final BlockingQueue<FeedEvent> buffer;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(String postId, BlockingQueue<FeedEvent> buffer) {
+            this.postId = postId;
+            this.buffer = buffer;
+        }
+
+        /** The next event, or null when none arrived within {@code timeout} or the subscription is closed. */
+        public FeedEvent poll(Duration timeout) throws InterruptedException {
+            if (closed.get()) return null;
+            FeedEvent event = buffer.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return event == CLOSED ? null : event;
+        }
+
+        public boolean isOpen() {
+            return !closed.get();
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(this, false);
+        }
+    }
+}
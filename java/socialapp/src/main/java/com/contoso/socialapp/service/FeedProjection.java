@@ -0,0 +1,235 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.model.PageCursor;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.Timestamps;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Optional in-memory read model of every post with its counters, in feed order, so feed pages and single
+ * posts are served without touching SQLite ({@code app.read-model.enabled}). It is loaded at startup and then
+ * kept current by the write paths, which call it after their commit and before bumping the post's version.
+ * Stored posts are never mutated: a change replaces the entry with a fresh row read back from the database,
+ * so the stored state is always a committed one. The row is read outside the lock and installed only if no
+ * later refresh of the post has started, since that one read a row at least as new. Writers hold the write
+ * lock just to install; readers copy a page under an optimistic read and retry under the read lock if a
+ * writer got in, so a page never mixes two states. Buffered likes are overlaid on the copies (in memory),
+ * and the buffer refreshes the posts it flushed.
+ */
+@Slf4j
+@Component
+public class FeedProjection implements ApplicationRunner {
+
+    // Feed order: created_at DESC, id DESC. Canonical lowercase UUID text sorts like the BLOB bytes.
+    private static final Comparator<Key> FEED_ORDER = Comparator.comparingLong(Key::createdAt)
+            .thenComparing(Key::id).reversed();
+
+    private final PostRepository postRepository;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final boolean maintained;
+    private final ConcurrentSkipListMap<Key, Post> feed = new ConcurrentSkipListMap<>(FEED_ORDER);
+    private final ConcurrentHashMap<String, Key> keys = new ConcurrentHashMap<>();
+    private final StampedLock lock = new StampedLock();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    // Posts written before the load finished; the load skips them because its rows may be older
+    private final Set<String> touchedWhileLoading = ConcurrentHashMap.newKeySet();
+    // Post ID -> sequence number of its latest refresh still in flight
+    private final ConcurrentHashMap<String, Long> latestRefresh = new ConcurrentHashMap<>();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final Timer rebuildTimer;
+    private volatile boolean loaded;
+
+    public FeedProjection(PostRepository postRepository, LikeWriteBuffer likeWriteBuffer,
+                          @Value("${app.read-model.enabled:false}") boolean enabled,
+                          MeterRegistry registry) {
+        this.postRepository = postRepository;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.maintained = enabled;
+        if (enabled) likeWriteBuffer.onFlushed(this::refresh);
+        this.rebuildTimer = Timer.builder("feed.projection.rebuild")
+                .description("Time to load the in-memory feed projection from the database")
+                .register(registry);
+        Gauge.builder("feed.projection.posts", keys, ConcurrentHashMap::size)
+                .description("Posts held by the in-memory feed projection")
+                .register(registry);
+        Gauge.builder("feed.projection.memory", estimatedBytes, AtomicLong::get)
+                .description("Estimated heap held by the in-memory feed projection")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!maintained) return;
+        long start = System.nanoTime();
+        postRepository.streamRange(null, null, p -> {
+            long stamp = lock.writeLock();
+            try {
+                if (!touchedWhileLoading.contains(p.getId())) put(p);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        });
+        long stamp = lock.writeLock();
+        try {
+            loaded = true;
+            touchedWhileLoading.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        long nanos = System.nanoTime() - start;
+        rebuildTimer.record(nanos, TimeUnit.NANOSECONDS);
+        log.info("Loaded {} posts (~{} MB) into the feed projection in {} ms",
+                keys.size(), estimatedBytes.get() >> 20, nanos / 1_000_000);
+    }
+
+    /** Whether reads can be served from the projection. */
+    public boolean isReady() {
+        return maintained && loaded;
+    }
+
+    /** Up to {@code limit} posts after {@code after} in feed order, as copies. */
+    public List<Post> page(PageCursor after, int limit) {
+        long stamp = lock.tryOptimisticRead();
+        List<Post> page = collect(after, limit);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                page = collect(after, limit);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        page.forEach(likeWriteBuffer::overlay);
+        return page;
+    }
+
+    public Optional<Post> get(String id) {
+        long stamp = lock.tryOptimisticRead();
+        Post p = find(id);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                p = find(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (p == null) return Optional.empty();
+        Post copy = p.copy();
+        likeWriteBuffer.overlay(copy);
+        return Optional.of(copy);
+    }
+
+    private Post find(String id) {
+        Key key = keys.get(id);
+        return key == null ? null : feed.get(key);
+    }
+
+    // For a newly inserted post, whose full state (no likes or comments yet) is already known
+    public void added(Post post) {
+        if (!maintained) return;
+        long stamp = lock.writeLock();
+        try {
+            if (!loaded) touchedWhileLoading.add(post.getId());
+            put(post.copy());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void refresh(String id) {
+        refresh(List.of(id));
+    }
+
+    /**
+     * Replaces the posts with their committed state, or drops those that no longer exist, with one query
+     * outside the lock. Each post's refresh draws a sequence number before reading and installs its row only
+     * if it still holds the post's latest number: a refresh that started later read after this one's commit.
+     */
+    public void refresh(Collection<String> ids) {
+        if (!maintained || ids.isEmpty()) return;
+        Map<String, Long> seqs = new HashMap<>();
+        for (String id : ids) {
+            long seq = refreshes.incrementAndGet();
+            latestRefresh.merge(id, seq, Long::max);
+            seqs.put(id, seq);
+            if (!loaded) touchedWhileLoading.add(id);
+        }
+        Map<String, Post> rows = new HashMap<>();
+        postRepository.findByIds(seqs.keySet()).forEach(p -> rows.put(p.getId(), p));
+        long stamp = lock.writeLock();
+        try {
+            seqs.forEach((id, seq) -> {
+                if (!latestRefresh.remove(id, seq)) return;
+                Post row = rows.get(id);
+                if (row != null) put(row);
+                else remove(id);
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private List<Post> collect(PageCursor after, int limit) {
+        var view = after == null
+                ? feed.values()
+                : feed.tailMap(new Key(Timestamps.toMillis(after.getCreatedAt()), after.getId()), false).values();
+        List<Post> page = new ArrayList<>(limit);
+        for (Post p : view) {
+            if (page.size() == limit) break;
+            page.add(p.copy());
+        }
+        return page;
+    }
+
+    // Caller holds the write lock. The new entry goes in before the old one leaves (created_at never changes,
+    // so normally it is the same key, overwritten in place); a lock-free reader never finds the post missing.
+    private void put(Post post) {
+        Key key = new Key(Timestamps.toMillis(post.getCreatedAt()), post.getId());
+        Post old = feed.put(key, post);
+        Key oldKey = keys.put(post.getId(), key);
+        if (oldKey != null && !oldKey.equals(key)) old = feed.remove(oldKey);
+        if (old != null) estimatedBytes.addAndGet(-footprint(old));
+        estimatedBytes.addAndGet(footprint(post));
+    }
+
+    // Caller holds the write lock
+    private void remove(String id) {
+        Key key = keys.remove(id);
+        if (key == null) return;
+        Post old = feed.remove(key);
+        if (old != null) estimatedBytes.addAndGet(-footprint(old));
+    }
+
+    // Rough per-post heap: the Post and its strings, plus the key and the skip list and hash map entries
+    private static long footprint(Post p) {
+        return 200 + 2L * (p.getId().length() + p.getUsername().length() + p.getContent().length()
+                + p.getCreatedAt().length() + p.getUpdatedAt().length());
+    }
+
+    private record Key(long createdAt, String id) {
+    }
+}
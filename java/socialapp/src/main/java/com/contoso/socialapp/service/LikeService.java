@@ -2,24 +2,104 @@ package com.contoso.socialapp.service;
 
 import com.contoso.socialapp.dto.LikeRequest;
 import com.contoso.socialapp.dto.LikeResponse;
+import com.contoso.socialapp.model.FeedEvent;
+import com.contoso.socialapp.model.Like;
 import com.contoso.socialapp.repository.LikeRepository;
+import com.contoso.socialapp.repository.SqliteWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 public class LikeService {
 
     private final LikeRepository likeRepository;
+    private final PostService postService;
     private final TimeProvider timeProvider;
+    private final SqliteWriter sqliteWriter;
+    private final PostCache postCache;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final PostVersions postVersions;
+    private final TrendingPosts trendingPosts;
+    private final EventBus eventBus;
+    private final FeedProjection feedProjection;
+
+    // Empty when the post does not exist. The common case is a single write; the post is only
+    // probed when nothing was inserted, to tell a repeated like from a missing post.
+    public Optional<LikeResponse> like(String postId, LikeRequest req) {
+        String now = timeProvider.nowIso();
+        LikeResponse response = new LikeResponse(postId, req.getUsername(), now);
+        if (likeWriteBuffer.isEnabled()) {
+            if (!postService.exists(postId)) return Optional.empty();
+            if (likeWriteBuffer.like(postId, req.getUsername(), now)) {
+                trendingPosts.recordLikes(postId, 1);
+                // Reads overlay the buffered like right away, so the representation has already changed
+                postVersions.bump(postId);
+                eventBus.publish(FeedEvent.LIKE_ADDED, postId, response);
+            }
+            return Optional.of(response);
+        }
+        boolean inserted = sqliteWriter.execute(() -> likeRepository.like(postId, req.getUsername(), now));
+        if (inserted) {
+            postCache.invalidate(postId);
+            feedProjection.refresh(postId);
+            postVersions.bump(postId);
+            trendingPosts.recordLikes(postId, 1);
+            eventBus.publish(FeedEvent.LIKE_ADDED, postId, response);
+        } else if (!postService.exists(postId)) {
+            return Optional.empty();
+        }
+        return Optional.of(response);
+    }
 
-    public LikeResponse like(String postId, LikeRequest req) {
+    // Batched form of like: one existence probe at most and one batched insert for the whole list
+    public Optional<List<LikeResponse>> likeAll(String postId, List<LikeRequest> reqs) {
         String now = timeProvider.nowIso();
-        likeRepository.like(postId, req.getUsername(), now);
-        return new LikeResponse(postId, req.getUsername(), now);
+        List<LikeResponse> responses = reqs.stream().map(r -> new LikeResponse(postId, r.getUsername(), now)).toList();
+        if (likeWriteBuffer.isEnabled()) {
+            if (!postService.exists(postId)) return Optional.empty();
+            List<String> added = likeWriteBuffer.likeAll(postId, reqs.stream().map(LikeRequest::getUsername).toList(), now);
+            if (!added.isEmpty()) {
+                postVersions.bump(postId);
+                trendingPosts.recordLikes(postId, added.size());
+                added.forEach(u -> eventBus.publish(FeedEvent.LIKE_ADDED, postId, new LikeResponse(postId, u, now)));
+            }
+            return Optional.of(responses);
+        }
+        List<Like> likes = reqs.stream().map(r -> new Like(postId, r.getUsername(), now)).toList();
+        List<Like> inserted = sqliteWriter.execute(() -> likeRepository.likeAll(likes));
+        if (!inserted.isEmpty()) {
+            postCache.invalidate(postId);
+            feedProjection.refresh(postId);
+            postVersions.bump(postId);
+            trendingPosts.recordLikes(postId, inserted.size());
+            // Repeats are answered like new likes but announced only once, when they were first stored
+            inserted.forEach(l -> eventBus.publish(FeedEvent.LIKE_ADDED, postId, new LikeResponse(postId, l.getUsername(), now)));
+        } else if (!postService.exists(postId)) {
+            return Optional.empty();
+        }
+        return Optional.of(responses);
     }
 
-    public void unlike(String postId, String username) {
-        likeRepository.unlike(postId, username);
+    public boolean unlike(String postId, String username) {
+        if (likeWriteBuffer.isEnabled()) {
+            if (!postService.exists(postId)) return false;
+            if (likeWriteBuffer.unlike(postId, username)) {
+                postVersions.bump(postId);
+                eventBus.publish(FeedEvent.LIKE_REMOVED, postId, new LikeResponse(postId, username, null));
+            }
+            return true;
+        }
+        boolean removed = sqliteWriter.execute(() -> likeRepository.unlike(postId, username));
+        if (removed) {
+            postCache.invalidate(postId);
+            feedProjection.refresh(postId);
+            postVersions.bump(postId);
+            eventBus.publish(FeedEvent.LIKE_REMOVED, postId, new LikeResponse(postId, username, null));
+        }
+        return removed;
     }
 }
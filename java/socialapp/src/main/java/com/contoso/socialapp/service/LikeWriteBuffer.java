@@ -0,0 +1,247 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.model.Like;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.repository.LikeRepository;
+import com.contoso.socialapp.repository.SqliteWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Optional write-behind mode for likes. Like/unlike taps are coalesced per (postId, username) so only
+ * the latest state is written, and the buffer is flushed as one batched transaction at most
+ * {@code max-staleness} after a tap (sooner if it grows past {@code max-buffered}).
+ * Reads overlay the pending state on the stored counters so users see their own likes immediately. Each
+ * entry remembers whether the like was stored when the entry was created, so the overlay is computed in memory.
+ */
+@Slf4j
+@Component
+public class LikeWriteBuffer implements SmartLifecycle {
+
+    // stored: whether the database holds this like, as of the last flush that touched it
+    private record Pending(boolean liked, String at, boolean stored) {
+        int delta() {
+            return (liked ? 1 : 0) - (stored ? 1 : 0);
+        }
+    }
+
+    private final LikeRepository likeRepository;
+    private final SqliteWriter sqliteWriter;
+    private final PostCache postCache;
+    private final boolean enabled;
+    private final Duration maxStaleness;
+    private final int maxBuffered;
+    private final Timer flushTimer;
+
+    // postId -> username -> latest pending state; inner maps are only touched inside compute() on the outer map
+    private final ConcurrentHashMap<String, Map<String, Pending>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Bumped after each committed flush, so a stored state read across one is read again
+    private final AtomicLong flushes = new AtomicLong();
+    private final List<Consumer<Set<String>>> flushListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public LikeWriteBuffer(LikeRepository likeRepository, SqliteWriter sqliteWriter, PostCache postCache,
+                           @Value("${app.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${app.likes.write-behind.max-staleness:500ms}") Duration maxStaleness,
+                           @Value("${app.likes.write-behind.max-buffered:10000}") int maxBuffered,
+                           MeterRegistry registry) {
+        this.likeRepository = likeRepository;
+        this.sqliteWriter = sqliteWriter;
+        this.postCache = postCache;
+        this.enabled = enabled;
+        this.maxStaleness = maxStaleness;
+        this.maxBuffered = maxBuffered;
+        this.flushTimer = Timer.builder("likes.buffer.flush")
+                .description("Time to write one batch of buffered likes")
+                .register(registry);
+        registry.gauge("likes.buffer.depth", depth);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Registers a callback for the IDs of the posts whose buffered likes a flush just wrote. */
+    public void onFlushed(Consumer<Set<String>> listener) {
+        flushListeners.add(listener);
+    }
+
+    /** Buffers a like; returns whether the user had not already liked the post. */
+    public boolean like(String postId, String username, String likedAt) {
+        return !record(postId, List.of(username), true, likedAt).isEmpty();
+    }
+
+    /** Buffers likes by several users; returns those who had not already liked the post. */
+    public List<String> likeAll(String postId, Collection<String> usernames, String likedAt) {
+        return record(postId, usernames, true, likedAt);
+    }
+
+    /** Buffers an unlike; returns whether the user had liked the post. */
+    public boolean unlike(String postId, String username) {
+        return !record(postId, List.of(username), false, null).isEmpty();
+    }
+
+    /**
+     * Sets the pending state of each user and returns the users it changed. A user's first tap needs the
+     * stored state, which is read with one query for the whole call, outside compute(), before retrying; the
+     * read is repeated if a flush committed in between.
+     */
+    private List<String> record(String postId, Collection<String> usernames, boolean liked, String at) {
+        Set<String> storedLikers = null;
+        long readAt = 0;
+        while (true) {
+            Set<String> known = storedLikers;
+            long knownAt = readAt;
+            List<String> changed = new ArrayList<>();
+            boolean[] applied = {false};
+            pending.compute(postId, (k, users) -> {
+                // Checked here: a flush that commits later cleans up this post only after this compute(),
+                // and corrects the stored state of any entry it wrote
+                if (known == null || flushes.get() != knownAt) {
+                    for (String u : usernames) {
+                        if (users == null || !users.containsKey(u)) return users;
+                    }
+                }
+                Map<String, Pending> target = users != null ? users : new ConcurrentHashMap<>();
+                for (String u : usernames) {
+                    Pending current = target.get(u);
+                    boolean stored = current != null ? current.stored() : known.contains(u);
+                    boolean was = current != null ? current.liked() : stored;
+                    if (target.put(u, new Pending(liked, at, stored)) == null) depth.incrementAndGet();
+                    if (was != liked) changed.add(u);
+                }
+                applied[0] = true;
+                return target;
+            });
+            if (applied[0]) {
+                if (depth.get() >= maxBuffered && running && flushRequested.compareAndSet(false, true)) {
+                    flusher.execute(this::flush);
+                }
+                return changed;
+            }
+            readAt = flushes.get();
+            storedLikers = likeRepository.findLikers(postId, usernames);
+        }
+    }
+
+    /** Adjusts likesCount for taps that have not been flushed yet (read-your-writes); no I/O. */
+    public void overlay(Post post) {
+        if (!enabled) return;
+        Map<String, Pending> users = pending.get(post.getId());
+        if (users == null || users.isEmpty()) return;
+        int delta = 0;
+        for (Pending p : users.values()) {
+            delta += p.delta();
+        }
+        post.setLikesCount(Math.max(0, post.getLikesCount() + delta));
+    }
+
+    synchronized void flush() {
+        flushRequested.set(false);
+        List<Like> likes = new ArrayList<>();
+        List<Like> unlikes = new ArrayList<>();
+        Map<String, Map<String, Pending>> taken = new HashMap<>();
+        pending.forEach((postId, users) -> {
+            Map<String, Pending> copy = Map.copyOf(users);
+            taken.put(postId, copy);
+            copy.forEach((username, state) -> {
+                // A like and unlike that cancel out leave nothing to write
+                if (state.delta() > 0) likes.add(new Like(postId, username, state.at()));
+                else if (state.delta() < 0) unlikes.add(new Like(postId, username, null));
+            });
+        });
+        if (taken.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            sqliteWriter.run(() -> {
+                likeRepository.likeAll(likes);
+                likeRepository.unlikeAll(unlikes);
+            });
+        } catch (RuntimeException e) {
+            // Entries stay buffered and are retried on the next flush
+            log.warn("Flushing {} buffered likes failed", likes.size() + unlikes.size(), e);
+            return;
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        flushes.incrementAndGet();
+        // Drop the entries that were written; one overwritten by a newer tap meanwhile stays, now knowing
+        // that the database holds the state just written
+        taken.forEach((postId, written) -> {
+            pending.computeIfPresent(postId, (k, users) -> {
+                written.forEach((username, state) -> {
+                    Pending current = users.get(username);
+                    if (current == state) {
+                        users.remove(username);
+                        depth.decrementAndGet();
+                    } else if (current != null) {
+                        users.put(username, new Pending(current.liked(), current.at(), state.liked()));
+                    }
+                });
+                return users.isEmpty() ? null : users;
+            });
+            postCache.invalidate(postId);
+        });
+        flushListeners.forEach(l -> l.accept(taken.keySet()));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "like-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, maxStaleness.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, period, period, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) return;
+        running = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(maxStaleness.toMillis() + 5_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server has stopped taking requests, but before the SQLite writer
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+}
@@ -0,0 +1,63 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.model.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of posts (including their counters). Write paths invalidate the
+ * affected post; the TTL only bounds staleness if an invalidation is ever missed.
+ */
+@Component
+public class PostCache {
+
+    private final boolean enabled;
+    private final Cache<String, Post> cache;
+
+    public PostCache(@Value("${app.cache.posts.enabled:true}") boolean enabled,
+                     @Value("${app.cache.posts.maximum-size:10000}") long maximumSize,
+                     @Value("${app.cache.posts.ttl:30s}") Duration ttl,
+                     MeterRegistry registry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size tagged cache=posts
+        CaffeineCacheMetrics.monitor(registry, cache, "posts");
+    }
+
+    public Optional<Post> get(String id, Function<String, Optional<Post>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        // Loading inside the cache's compute means a concurrent invalidate() waits for the load
+        // and then drops it, so a value read before a write can never outlive that write
+        Post cached = cache.get(id, key -> loader.apply(key).orElse(null));
+        return Optional.ofNullable(cached).map(Post::copy);
+    }
+
+    // Hits only. Bulk loads are not atomic with invalidate(), so callers query the misses without caching them.
+    public Map<String, Post> getAllPresent(Collection<String> ids) {
+        if (!enabled) return Map.of();
+        Map<String, Post> hits = new HashMap<>();
+        cache.getAllPresent(ids).forEach((id, post) -> hits.put(id, post.copy()));
+        return hits;
+    }
+
+    public void invalidate(String id) {
+        cache.invalidate(id);
+    }
+}
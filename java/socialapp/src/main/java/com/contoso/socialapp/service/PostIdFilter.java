@@ -0,0 +1,102 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.repository.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over post IDs. A negative answer is definitive, so requests for unknown
+ * posts are rejected without a query; a positive answer may be a false positive (or a deleted post,
+ * since entries cannot be removed) and must be confirmed by the database.
+ * Until the initial load has finished every ID is reported as a possible member.
+ */
+@Slf4j
+@Component
+public class PostIdFilter implements ApplicationRunner {
+
+    private final PostRepository postRepository;
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+    private final Counter rejections;
+    private volatile boolean loaded;
+
+    public PostIdFilter(PostRepository postRepository,
+                        @Value("${app.post-filter.expected-posts:1000000}") int expectedPosts,
+                        @Value("${app.post-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                        MeterRegistry registry) {
+        this.postRepository = postRepository;
+        long m = (long) Math.ceil(-expectedPosts * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedPosts * Math.log(2)));
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        this.rejections = Counter.builder("posts.id.filter.rejections")
+                .description("Requests for unknown post IDs rejected without a database query")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int[] count = {0};
+        postRepository.forEachId(id -> {
+            add(id);
+            count[0]++;
+        });
+        loaded = true;
+        log.info("Loaded {} post IDs into the existence filter in {} ms", count[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void add(String id) {
+        long h = hash64(id);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String id) {
+        if (!loaded) return true;
+        long h = hash64(id);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                rejections.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-16 chars followed by the murmur3 finalizer for good bit dispersion
+    private static long hash64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,14 +1,26 @@
 package com.contoso.socialapp.service;
 
 import com.contoso.socialapp.dto.NewPostRequest;
+import com.contoso.socialapp.dto.PostLookupResponse;
 import com.contoso.socialapp.dto.UpdatePostRequest;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.FeedEvent;
+import com.contoso.socialapp.model.PageCursor;
 import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.model.StreamedPage;
 import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.SqliteWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -16,32 +28,167 @@ public class PostService {
 
     private final PostRepository postRepository;
     private final TimeProvider timeProvider;
+    private final IdGenerator idGenerator;
+    private final SqliteWriter sqliteWriter;
+    private final PostCache postCache;
+    private final PostIdFilter postIdFilter;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final PostVersions postVersions;
+    private final TrendingPosts trendingPosts;
+    private final EventBus eventBus;
+    private final FeedProjection feedProjection;
 
-    public List<Post> listPosts() {
-        List<Post> posts = postRepository.findAll();
-        posts.forEach(p -> enrichCounts(p));
-        return posts;
+    @Value("${app.feed.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.feed.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.posts.max-ids:100}")
+    private int maxIds;
+
+    @Value("${app.trending.default-limit:20}")
+    private int defaultTrendingLimit;
+
+    @Value("${app.streaming.enabled:false}")
+    private boolean streamingEnabled;
+
+    public CursorPage<Post> listPosts(String cursor, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        PageCursor after = PageCursor.fromParam(cursor);
+        if (feedProjection.isReady()) {
+            return CursorPage.fromOverfetch(feedProjection.page(after, size + 1), size, p -> new PageCursor(p.getCreatedAt(), p.getId()));
+        }
+        List<Post> rows = postRepository.findPage(after, size + 1);
+        rows.forEach(likeWriteBuffer::overlay);
+        return CursorPage.fromOverfetch(rows, size, p -> new PageCursor(p.getCreatedAt(), p.getId()));
+    }
+
+    // Streamed rows go straight to the response without the like overlay, so buffered likes disable streaming.
+    // Pages served from the read model are already in memory, so there is nothing to stream.
+    public boolean isStreaming() {
+        return streamingEnabled && !likeWriteBuffer.isEnabled() && !feedProjection.isReady();
+    }
+
+    public StreamedPage<Post> streamPosts(String cursor, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        PageCursor after = PageCursor.fromParam(cursor);
+        PageCursor end = postRepository.findPageEnd(after, size).orElse(null);
+        return new StreamedPage<>(end == null ? null : end.encode(), sink -> postRepository.streamRange(after, end, sink));
+    }
+
+    // Taken before the post is loaded; see PostVersions
+    public String etag(String id) {
+        return postVersions.etag("p", id);
     }
 
     public Optional<Post> getPost(String id) {
-        Optional<Post> post = postRepository.findById(id);
-        post.ifPresent(this::enrichCounts);
+        if (feedProjection.isReady()) return feedProjection.get(id);
+        Optional<Post> post = postCache.get(id, postRepository::findById);
+        post.ifPresent(likeWriteBuffer::overlay);
         return post;
     }
 
+    /**
+     * Resolves up to {@code app.posts.max-ids} posts at once: cache hits first, IDs the filter has never seen
+     * are reported missing outright, and the rest come from a single IN query; with the read model loaded
+     * they all come from memory instead. Duplicates are collapsed; both lists keep the order in which the
+     * IDs were first requested.
+     */
+    public PostLookupResponse getPosts(List<String> ids) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.isBlank()) requested.add(id.strip());
+        }
+        if (requested.isEmpty()) throw new IllegalArgumentException("ids must not be empty");
+        if (requested.size() > maxIds) throw new IllegalArgumentException("At most " + maxIds + " ids can be requested at once");
+
+        if (feedProjection.isReady()) {
+            List<Post> posts = new ArrayList<>(requested.size());
+            List<String> missing = new ArrayList<>();
+            for (String id : requested) {
+                feedProjection.get(id).ifPresentOrElse(posts::add, () -> missing.add(id));
+            }
+            return new PostLookupResponse(posts, missing);
+        }
+        Map<String, Post> found = new HashMap<>(postCache.getAllPresent(requested));
+        List<String> toLoad = requested.stream()
+                .filter(id -> !found.containsKey(id) && postIdFilter.mightContain(id))
+                .toList();
+        if (!toLoad.isEmpty()) {
+            postRepository.findByIds(toLoad).forEach(p -> found.put(p.getId(), p));
+        }
+
+        List<Post> posts = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : requested) {
+            Post p = found.get(id);
+            if (p == null) {
+                missing.add(id);
+            } else {
+                likeWriteBuffer.overlay(p);
+                posts.add(p);
+            }
+        }
+        return new PostLookupResponse(posts, missing);
+    }
+
+    // The ranking is in memory; the posts themselves come through the same lookup as getPosts
+    public List<Post> trending(Integer limit) {
+        if (limit != null && limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+        int size = Math.min(limit == null ? defaultTrendingLimit : limit, Math.min(trendingPosts.capacity(), maxIds));
+        List<String> ids = trendingPosts.top(size);
+        return ids.isEmpty() ? List.of() : getPosts(ids).getPosts();
+    }
+
+    // Cheap guard for child-resource writes: rejects IDs the filter has never seen without any query.
+    // A positive answer is not proof; the subsequent write re-checks the post inside its own statement.
+    public boolean mightExist(String id) {
+        return postIdFilter.mightContain(id);
+    }
+
+    public boolean exists(String id) {
+        return postIdFilter.mightContain(id) && postRepository.existsById(id);
+    }
+
     public Post create(NewPostRequest req) {
         Post p = new Post();
-        p.setId(java.util.UUID.randomUUID().toString());
+        p.setId(idGenerator.next());
         p.setUsername(req.getUsername());
         p.setContent(req.getContent());
         String now = timeProvider.nowIso();
         p.setCreatedAt(now);
         p.setUpdatedAt(now);
-        postRepository.insert(p);
-        enrichCounts(p);
+        sqliteWriter.run(() -> postRepository.insert(p));
+        postIdFilter.add(p.getId());
+        feedProjection.added(p);
+        eventBus.publish(FeedEvent.POST_CREATED, p.getId(), p);
+        // A freshly inserted post has no likes or comments yet
         return p;
     }
 
+    // All posts go in one batched insert and one transaction; they share a timestamp but keep request order by ID
+    public List<Post> createAll(List<NewPostRequest> reqs) {
+        String now = timeProvider.nowIso();
+        List<Post> posts = new ArrayList<>(reqs.size());
+        for (NewPostRequest req : reqs) {
+            Post p = new Post();
+            p.setId(idGenerator.next());
+            p.setUsername(req.getUsername());
+            p.setContent(req.getContent());
+            p.setCreatedAt(now);
+            p.setUpdatedAt(now);
+            posts.add(p);
+        }
+        sqliteWriter.run(() -> postRepository.insertAll(posts));
+        posts.forEach(p -> {
+            postIdFilter.add(p.getId());
+            feedProjection.added(p);
+            eventBus.publish(FeedEvent.POST_CREATED, p.getId(), p);
+        });
+        return posts;
+    }
+
     public Optional<Post> update(String id, UpdatePostRequest req) {
         Optional<Post> existing = postRepository.findById(id);
         if (existing.isEmpty()) return Optional.empty();
@@ -50,19 +197,21 @@ public class PostService {
             throw new IllegalArgumentException("Username mismatch");
         }
         String now = timeProvider.nowIso();
-        postRepository.updateContent(id, req.getContent(), now);
+        sqliteWriter.execute(() -> postRepository.updateContent(id, req.getContent(), now));
+        postCache.invalidate(id);
+        feedProjection.refresh(id);
+        postVersions.bump(id);
         post.setContent(req.getContent());
         post.setUpdatedAt(now);
-        enrichCounts(post);
         return Optional.of(post);
     }
 
     public boolean delete(String id) {
-        return postRepository.delete(id) > 0;
-    }
-
-    private void enrichCounts(Post p) {
-        p.setLikesCount(postRepository.countLikes(p.getId()));
-        p.setCommentsCount(postRepository.countComments(p.getId()));
+        boolean deleted = sqliteWriter.execute(() -> postRepository.delete(id)) > 0;
+        postCache.invalidate(id);
+        if (deleted) feedProjection.refresh(id);
+        postVersions.bump(id);
+        if (deleted) trendingPosts.remove(id);
+        return deleted;
     }
 }
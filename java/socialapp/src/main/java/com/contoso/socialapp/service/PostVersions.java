@@ -0,0 +1,42 @@
+package com.contoso.socialapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cheap per-post version numbers for strong ETags. Posts hash onto a fixed array of counters, so
+ * posts sharing a stripe invalidate each other's ETags (a spurious 200, never a wrong 304).
+ * Counters restart at zero on every boot; the startup epoch in the tag keeps old tags from matching.
+ * <p>
+ * Write paths must call {@link #bump} after the write has committed and after evicting the post from
+ * {@link PostCache}, and readers must take the tag before loading, so a tag never labels older data.
+ */
+@Component
+public class PostVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions;
+    private final int mask;
+
+    public PostVersions(@Value("${app.etag.stripes:4096}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.versions = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public void bump(String postId) {
+        versions.incrementAndGet(stripe(postId));
+    }
+
+    /** Quoted strong ETag for one representation ({@code kind}) of the post's state. */
+    public String etag(String kind, String postId) {
+        return "\"" + kind + "-" + epoch + "-" + Long.toString(versions.get(stripe(postId)), 36) + "\"";
+    }
+
+    private int stripe(String postId) {
+        int h = postId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,106 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.SearchHit;
+import com.contoso.socialapp.repository.SearchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    private static final int MAX_TERMS = 16;
+
+    private final SearchRepository searchRepository;
+
+    @Value("${app.search.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.search.max-page-size:50}")
+    private int maxPageSize;
+
+    // Ranking scores every match, so deep pages cost as much as the first; only the top results are reachable
+    @Value("${app.search.max-results:1000}")
+    private int maxResults;
+
+    public CursorPage<SearchHit> search(String q, String type, Integer limit, String cursor) {
+        String match = toMatchExpression(q);
+        int offset = cursor == null || cursor.isBlank() ? 0 : decode(cursor);
+        if (offset >= maxResults) {
+            throw new IllegalArgumentException("Only the first " + maxResults + " results can be paged through");
+        }
+        // The last reachable page is cut short at the limit rather than rejected
+        int size = Math.min(CursorPage.pageSize(limit, defaultPageSize, maxPageSize), maxResults - offset);
+        List<SearchHit> rows = switch (type == null ? "posts" : type) {
+            case "posts" -> searchRepository.searchPosts(match, size + 1, offset);
+            case "comments" -> searchRepository.searchComments(match, size + 1, offset);
+            case "all" -> merged(match, size + 1, offset);
+            default -> throw new IllegalArgumentException("type must be posts, comments or all");
+        };
+        List<SearchHit> items = rows.size() > size ? rows.subList(0, size) : rows;
+        items.forEach(h -> h.setSnippet(highlight(h.getSnippet())));
+        // No cursor past the limit, even when more rows match
+        boolean more = rows.size() > size && offset + size < maxResults;
+        return new CursorPage<>(items, more ? encode(offset + size) : null);
+    }
+
+    // Both indexes are ranked separately, so each contributes its top offset + limit; bm25 scores from the two
+    // are close enough in scale to interleave, though not strictly comparable
+    private List<SearchHit> merged(String match, int limit, int offset) {
+        List<SearchHit> all = new ArrayList<>(searchRepository.searchPosts(match, offset + limit, 0));
+        all.addAll(searchRepository.searchComments(match, offset + limit, 0));
+        all.sort(Comparator.comparingDouble(SearchHit::getScore).reversed());
+        return all.subList(Math.min(offset, all.size()), Math.min(offset + limit, all.size()));
+    }
+
+    /**
+     * Turns free text into an FTS5 expression: every whitespace-separated term must match and is quoted, so
+     * FTS5 operators and column filters in user input are treated as plain text. A trailing {@code *} on a
+     * term keeps its meaning as a prefix search.
+     */
+    static String toMatchExpression(String q) {
+        List<String> terms = new ArrayList<>();
+        if (q != null) {
+            for (String raw : q.trim().split("\\s+")) {
+                boolean prefix = raw.endsWith("*");
+                String term = prefix ? raw.substring(0, raw.length() - 1) : raw;
+                if (term.isEmpty()) continue;
+                terms.add("\"" + term.replace("\"", "\"\"") + "\"" + (prefix ? "*" : ""));
+                if (terms.size() == MAX_TERMS) break;
+            }
+        }
+        if (terms.isEmpty()) throw new IllegalArgumentException("q must contain at least one search term");
+        return String.join(" ", terms);
+    }
+
+    // Escapes the stored text, then turns the match markers from the repository into <mark> tags
+    private static String highlight(String snippet) {
+        if (snippet == null) return null;
+        return HtmlUtils.htmlEscape(snippet)
+                .replace(String.valueOf(SearchRepository.MATCH_START), "<mark>")
+                .replace(String.valueOf(SearchRepository.MATCH_END), "</mark>");
+    }
+
+    private static String encode(int offset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Integer.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decode(String cursor) {
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) throw new IllegalArgumentException("Invalid cursor");
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.contoso.socialapp.service;
 
+import com.contoso.socialapp.repository.Timestamps;
 import org.springframework.stereotype.Component;
 
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
-
 @Component
 public class TimeProvider {
+
+    // Millisecond precision, the same as the INTEGER epoch-millis columns, so values round-trip exactly
     public String nowIso() {
-        return OffsetDateTime.now(ZoneOffset.UTC).toString();
+        return Timestamps.toIso(nowMillis());
+    }
+
+    public long nowMillis() {
+        return System.currentTimeMillis();
     }
 }
@@ -0,0 +1,264 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.repository.CommentRepository;
+import com.contoso.socialapp.repository.LikeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent engagement per post over a sliding window, kept in memory so the trending view never queries.
+ * Each post has a ring of time buckets, one packed {@code bucket << 24 | count} long per slot, so recording
+ * a like or comment is a CAS on a single slot. Scores use forward decay: activity in bucket {@code b} weighs
+ * {@code 2^((b - landmark) / halfLife)}, which keeps the order of posts fixed as time passes, so the top-K
+ * set only changes when a post gains activity. Once per bucket the landmark moves up, expired buckets drop
+ * out, idle posts are forgotten and the top-K set is rebuilt from scratch.
+ */
+@Slf4j
+@Component
+public class TrendingPosts implements ApplicationRunner, SmartLifecycle {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final Comparator<Ranked> BY_SCORE = Comparator.comparingDouble(Ranked::score).reversed()
+            .thenComparing(Ranked::postId);
+
+    private final LikeRepository likeRepository;
+    private final CommentRepository commentRepository;
+    private final TimeProvider timeProvider;
+    private final long bucketMillis;
+    private final int buckets;
+    private final double halfLifeBuckets;
+    private final int topK;
+    private final int commentWeight;
+    // Rows stamped before this instant are loaded by the rebuild; everything later is recorded live
+    private final long liveSince;
+
+    private final ConcurrentHashMap<String, AtomicLongArray> counters = new ConcurrentHashMap<>();
+    // Guarded by itself; ranked mirrors its contents by post ID
+    private final TreeSet<Ranked> top = new TreeSet<>(BY_SCORE);
+    private final Map<String, Ranked> ranked = new HashMap<>();
+    private volatile double floor;    // lowest score in a full top set, 0 while it has room
+    private volatile long landmark;
+    private ScheduledExecutorService refresher;
+    private volatile boolean running;
+
+    public TrendingPosts(LikeRepository likeRepository, CommentRepository commentRepository, TimeProvider timeProvider,
+                         @Value("${app.trending.window:24h}") Duration window,
+                         @Value("${app.trending.bucket:1h}") Duration bucket,
+                         @Value("${app.trending.half-life:6h}") Duration halfLife,
+                         @Value("${app.trending.top-k:100}") int topK,
+                         @Value("${app.trending.comment-weight:2}") int commentWeight,
+                         MeterRegistry registry) {
+        if (bucket.toMillis() < 1000 || window.compareTo(bucket) < 0) {
+            throw new IllegalArgumentException("app.trending.bucket must be at least 1s and no longer than the window");
+        }
+        this.likeRepository = likeRepository;
+        this.commentRepository = commentRepository;
+        this.timeProvider = timeProvider;
+        this.liveSince = timeProvider.nowMillis();
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = (int) Math.ceilDiv(window.toMillis(), bucketMillis);
+        this.halfLifeBuckets = Math.max(1e-3, (double) halfLife.toMillis() / bucketMillis);
+        if (buckets / halfLifeBuckets > 512) {
+            throw new IllegalArgumentException("app.trending.half-life is too short for the window; weights would overflow");
+        }
+        this.topK = Math.max(1, topK);
+        this.commentWeight = commentWeight;
+        this.landmark = currentBucket() - buckets + 1;
+        registry.gaugeMapSize("trending.tracked.posts", Tags.empty(), counters);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long since = liveSince - buckets * bucketMillis;
+        int[] count = {0};
+        likeRepository.forEachLikedBetween(since, liveSince, (postId, likedAt) -> {
+            record(postId, 1, likedAt);
+            count[0]++;
+        });
+        commentRepository.forEachCreatedBetween(since, liveSince, (postId, createdAt) -> {
+            record(postId, commentWeight, createdAt);
+            count[0]++;
+        });
+        refresh();
+        log.info("Rebuilt trending counters from {} likes and comments in {} ms", count[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void recordLikes(String postId, int count) {
+        if (count > 0) record(postId, count, timeProvider.nowMillis());
+    }
+
+    public void recordComments(String postId, int count) {
+        if (count > 0) record(postId, (long) count * commentWeight, timeProvider.nowMillis());
+    }
+
+    public void remove(String postId) {
+        counters.remove(postId);
+        synchronized (top) {
+            Ranked r = ranked.remove(postId);
+            if (r != null) top.remove(r);
+            updateFloor();
+        }
+    }
+
+    /** Up to {@code limit} post IDs, hottest first. */
+    public List<String> top(int limit) {
+        synchronized (top) {
+            List<String> ids = new ArrayList<>(Math.min(limit, top.size()));
+            for (Ranked r : top) {
+                if (ids.size() == limit) break;
+                ids.add(r.postId());
+            }
+            return ids;
+        }
+    }
+
+    public int capacity() {
+        return topK;
+    }
+
+    private void record(String postId, long weight, long atMillis) {
+        long bucket = atMillis / bucketMillis;
+        long now = currentBucket();
+        if (bucket <= now - buckets) return;
+        AtomicLongArray ring = counters.computeIfAbsent(postId, id -> new AtomicLongArray(buckets));
+        int slot = (int) Math.floorMod(bucket, buckets);
+        long current;
+        long next;
+        do {
+            current = ring.get(slot);
+            long slotBucket = current >>> COUNT_BITS;
+            if (slotBucket > bucket) return; // only a late rebuild row can be older than the slot
+            long count = slotBucket == bucket ? current & COUNT_MASK : 0;
+            next = bucket << COUNT_BITS | Math.min(count + weight, COUNT_MASK);
+        } while (!ring.compareAndSet(slot, current, next));
+
+        long mark = landmark;
+        double score = score(ring, now, mark);
+        if (score <= floor) return;
+        synchronized (top) {
+            // A refresh moved the landmark since the score was taken; re-score on the new scale
+            if (mark != landmark) score = score(ring, currentBucket(), landmark);
+            offer(postId, score);
+        }
+    }
+
+    // Caller holds the top lock. Between refreshes a post's score only grows, so a lower one is a stale read.
+    private void offer(String postId, double score) {
+        Ranked old = ranked.get(postId);
+        if (old != null) {
+            if (score <= old.score()) return;
+            top.remove(old);
+        } else if (top.size() >= topK) {
+            if (score <= top.last().score()) return;
+            ranked.remove(top.pollLast().postId());
+        }
+        Ranked r = new Ranked(postId, score);
+        top.add(r);
+        ranked.put(postId, r);
+        updateFloor();
+    }
+
+    private void updateFloor() {
+        floor = top.size() >= topK ? top.last().score() : 0;
+    }
+
+    private double score(AtomicLongArray ring, long now, long mark) {
+        long oldest = now - buckets + 1;
+        double score = 0;
+        for (int i = 0; i < buckets; i++) {
+            long v = ring.get(i);
+            long b = v >>> COUNT_BITS;
+            if (b >= oldest && b <= now) {
+                score += (v & COUNT_MASK) * Math.pow(2, (b - mark) / halfLifeBuckets);
+            }
+        }
+        return score;
+    }
+
+    // Runs once per bucket. Holding the top lock throughout keeps every score in the set on one landmark;
+    // writers only wait for it when their post would enter the set.
+    void refresh() {
+        synchronized (top) {
+            long now = currentBucket();
+            landmark = now - buckets + 1;
+            PriorityQueue<Ranked> best = new PriorityQueue<>(topK + 1, BY_SCORE.reversed());
+            counters.forEach((postId, ring) -> {
+                double score = score(ring, now, landmark);
+                if (score == 0) {
+                    // A like racing with this removal can be lost; the post was idle for the whole window
+                    counters.remove(postId, ring);
+                    return;
+                }
+                best.add(new Ranked(postId, score));
+                if (best.size() > topK) best.poll();
+            });
+            top.clear();
+            ranked.clear();
+            for (Ranked r : best) {
+                top.add(r);
+                ranked.put(r.postId(), r);
+            }
+            updateFloor();
+        }
+    }
+
+    private long currentBucket() {
+        return timeProvider.nowMillis() / bucketMillis;
+    }
+
+    // The post's current score on the current landmark's scale, 0 if untracked
+    double score(String postId) {
+        AtomicLongArray ring = counters.get(postId);
+        return ring == null ? 0 : score(ring, currentBucket(), landmark);
+    }
+
+    @Override
+    public void start() {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "trending-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        // Aligned to bucket boundaries so expired activity leaves as soon as its bucket does
+        long delay = bucketMillis - timeProvider.nowMillis() % bucketMillis;
+        refresher.scheduleAtFixedRate(this::refresh, delay, bucketMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) return;
+        running = false;
+        refresher.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private record Ranked(String postId, double score) {
+    }
+}
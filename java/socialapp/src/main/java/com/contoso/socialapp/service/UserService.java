@@ -0,0 +1,48 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.PageCursor;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.model.UserProfile;
+import com.contoso.socialapp.repository.CommentRepository;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class UserService {
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final LikeWriteBuffer likeWriteBuffer;
+
+    @Value("${app.feed.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.feed.max-page-size:200}")
+    private int maxPageSize;
+
+    public UserProfile profile(String username) {
+        return userRepository.findProfile(username);
+    }
+
+    public CursorPage<Post> listPosts(String username, String cursor, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        List<Post> rows = postRepository.findPageByUser(username, PageCursor.fromParam(cursor), size + 1);
+        rows.forEach(likeWriteBuffer::overlay);
+        return CursorPage.fromOverfetch(rows, size, p -> new PageCursor(p.getCreatedAt(), p.getId()));
+    }
+
+    public CursorPage<Comment> listComments(String username, String cursor, Integer limit) {
+        int size = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        List<Comment> rows = commentRepository.findPageByUser(username, PageCursor.fromParam(cursor), size + 1);
+        return CursorPage.fromOverfetch(rows, size, c -> new PageCursor(c.getCreatedAt(), c.getId()));
+    }
+}
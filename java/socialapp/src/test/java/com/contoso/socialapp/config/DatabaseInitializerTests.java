@@ -0,0 +1,157 @@
+package com.contoso.socialapp.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database written by the original schema (TEXT UUIDs, OffsetDateTime#toString timestamps, no
+ * counters) and checks every migration step landed: epoch millis, BLOB IDs, counters, foreign keys.
+ */
+class DatabaseInitializerTests {
+
+    private static final String POST = "0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5b";
+    private static final String QUIET_POST = "0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5c";
+    private static final String COMMENT = "0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5d";
+    private static final String ORPHANED_COMMENT = "0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5e";
+    // 32 hex digits and four dashes, but not in the 8-4-4-4-12 places
+    private static final String MISPLACED_DASHES = "0190a1b2c-3d4-7e5f-8a9b-0c1d2e3f4a5f";
+    private static final String POSTS = "SELECT hex(id), username, content, created_at, updated_at, likes_count, comments_count FROM posts";
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("legacy.db"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        // As DatabaseConfig sets it on every pooled connection
+        jdbc.execute("PRAGMA foreign_keys = ON");
+        createBaselineSchema();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void upgradesTheBaselineSchema() throws Exception {
+        // OffsetDateTime#toString drops zero seconds and trims the fraction, so widths vary
+        insertPost(POST, "alice", "2024-01-02T03:04Z");
+        insertPost(QUIET_POST, "alice", "2024-01-02T03:04:05.6Z");
+        insertPost("legacy-1", "bob", "2024-01-02T03:04:05.123456789Z");
+        insertPost(MISPLACED_DASHES, "bob", "2024-01-02T03:04Z");
+        jdbc.update("INSERT INTO comments VALUES (?, ?, 'bob', 'hi', ?, ?)", COMMENT, POST, "2024-01-03T00:00Z", "2024-01-03T00:00Z");
+        jdbc.update("INSERT INTO comments VALUES (?, 'legacy-1', 'bob', 'hi', ?, ?)", ORPHANED_COMMENT, "2024-01-03T00:00Z", "2024-01-03T00:00Z");
+        jdbc.update("INSERT INTO likes VALUES (?, 'bob', ?)", POST, "2024-01-04T00:00:00.25Z");
+        jdbc.update("INSERT INTO likes VALUES (?, 'carol', ?)", POST, "2024-01-04T00:00Z");
+        jdbc.update("INSERT INTO likes VALUES ('legacy-1', 'carol', ?)", "2024-01-04T00:00Z");
+
+        new DatabaseInitializer(jdbc).run();
+
+        assertThat(jdbc.queryForObject("PRAGMA user_version", Integer.class)).isEqualTo(3);
+        assertThat(jdbc.queryForList("SELECT typeof(id) FROM posts", String.class)).containsOnly("blob");
+        // Rows not keyed by a UUID are moved out as they were, with everything that pointed at them
+        assertThat(jdbc.queryForList("SELECT hex(id) FROM posts ORDER BY id", String.class))
+                .containsExactly(hex(POST), hex(QUIET_POST));
+        assertThat(jdbc.queryForList("SELECT hex(id) FROM comments", String.class)).containsExactly(hex(COMMENT));
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM likes", Integer.class)).isEqualTo(2);
+        assertThat(jdbc.queryForList("SELECT id FROM posts_quarantine ORDER BY id", String.class))
+                .containsExactly(MISPLACED_DASHES, "legacy-1");
+        assertThat(jdbc.queryForList("SELECT id FROM comments_quarantine", String.class)).containsExactly(ORPHANED_COMMENT);
+        assertThat(jdbc.queryForList("SELECT username FROM likes_quarantine WHERE post_id = 'legacy-1'", String.class))
+                .containsExactly("carol");
+
+        Map<String, Object> post = jdbc.queryForMap(
+                "SELECT created_at, updated_at, likes_count, comments_count FROM posts WHERE id = unhex(?)", hex(POST));
+        assertThat(post).containsEntry("created_at", millis("2024-01-02T03:04:00Z"))
+                .containsEntry("updated_at", millis("2024-01-02T03:04:00Z"))
+                .containsEntry("likes_count", 2)
+                .containsEntry("comments_count", 1);
+        assertThat(jdbc.queryForObject("SELECT created_at FROM posts WHERE id = unhex(?)", Long.class, hex(QUIET_POST)))
+                .isEqualTo(millis("2024-01-02T03:04:05.600Z"));
+        assertThat(jdbc.queryForList("SELECT liked_at FROM likes WHERE username = 'bob'", Long.class))
+                .containsExactly(millis("2024-01-04T00:00:00.250Z"));
+        assertThat(jdbc.queryForList("SELECT posts_count FROM user_stats WHERE username = 'alice'", Integer.class))
+                .containsExactly(2);
+        assertThat(jdbc.queryForList("SELECT comments_count FROM user_stats WHERE username = 'bob'", Integer.class))
+                .containsExactly(1);
+
+        assertThat(jdbc.queryForList("PRAGMA foreign_key_check")).isEmpty();
+        assertThat(jdbc.queryForObject("PRAGMA foreign_keys", Integer.class)).isEqualTo(1);
+        jdbc.update("DELETE FROM posts WHERE id = unhex(?)", hex(POST));
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM likes", Integer.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM comments", Integer.class)).isZero();
+    }
+
+    @Test
+    void rerunningOnACurrentDatabaseChangesNothing() throws Exception {
+        insertPost(POST, "alice", "2024-01-02T03:04Z");
+        jdbc.update("INSERT INTO likes VALUES (?, 'bob', ?)", POST, "2024-01-04T00:00Z");
+        new DatabaseInitializer(jdbc).run();
+        List<Map<String, Object>> before = jdbc.queryForList(POSTS);
+
+        new DatabaseInitializer(jdbc).run();
+
+        assertThat(jdbc.queryForList(POSTS)).isEqualTo(before);
+        assertThat(jdbc.queryForObject("SELECT likes_count FROM posts", Integer.class)).isEqualTo(1);
+    }
+
+    private void createBaselineSchema() {
+        jdbc.execute("""
+            CREATE TABLE posts (
+                id TEXT PRIMARY KEY,
+                username TEXT NOT NULL,
+                content TEXT NOT NULL,
+                created_at TEXT NOT NULL,
+                updated_at TEXT NOT NULL
+            )
+        """);
+        jdbc.execute("""
+            CREATE TABLE comments (
+                id TEXT PRIMARY KEY,
+                post_id TEXT NOT NULL,
+                username TEXT NOT NULL,
+                content TEXT NOT NULL,
+                created_at TEXT NOT NULL,
+                updated_at TEXT NOT NULL,
+                FOREIGN KEY(post_id) REFERENCES posts(id) ON DELETE CASCADE
+            )
+        """);
+        jdbc.execute("""
+            CREATE TABLE likes (
+                post_id TEXT NOT NULL,
+                username TEXT NOT NULL,
+                liked_at TEXT NOT NULL,
+                PRIMARY KEY(post_id, username),
+                FOREIGN KEY(post_id) REFERENCES posts(id) ON DELETE CASCADE
+            )
+        """);
+    }
+
+    private void insertPost(String id, String username, String at) {
+        jdbc.update("INSERT INTO posts VALUES (?, ?, 'content', ?, ?)", id, username, at, at);
+    }
+
+    private static String hex(String uuid) {
+        return uuid.replace("-", "").toUpperCase();
+    }
+
+    private static long millis(String iso) {
+        return Instant.parse(iso).toEpochMilli();
+    }
+}
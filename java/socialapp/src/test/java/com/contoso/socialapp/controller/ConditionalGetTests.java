@@ -0,0 +1,138 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.config.QueryStatsFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag revalidation: a matching tag is answered with 304 before any statement runs, and every write path
+ * retires the tags it affects, so a client holding one never keeps a stale copy.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+    @TempDir
+    static Path dbDir;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("app.sqlite.path", () -> dbDir.resolve("etag.db").toString());
+    }
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private String postId;
+    private String postUrl;
+    private String commentsUrl;
+
+    @BeforeEach
+    void createPost() throws Exception {
+        MvcResult created = mvc.perform(post("/api/posts").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alice\",\"content\":\"hello\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        postId = id(created);
+        postUrl = "/api/posts/" + postId;
+        commentsUrl = postUrl + "/comments";
+    }
+
+    @Test
+    void matchingTagIsAnsweredWithoutQueries() throws Exception {
+        for (String url : new String[]{postUrl, commentsUrl}) {
+            String etag = etag(url);
+            mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(QueryStatsFilter.QUERY_COUNT_HEADER, "0"));
+        }
+    }
+
+    @Test
+    void everyWritePathRetiresTheOldTags() throws Exception {
+        String postTag = etag(postUrl);
+        String commentsTag = etag(commentsUrl);
+
+        mvc.perform(post(postUrl + "/likes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"bob\"}"))
+                .andExpect(status().isCreated());
+        postTag = assertChanged(postUrl, postTag);
+
+        mvc.perform(delete(postUrl + "/likes").header("x-username", "bob"))
+                .andExpect(status().isNoContent());
+        postTag = assertChanged(postUrl, postTag);
+
+        MvcResult comment = mvc.perform(post(commentsUrl).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"bob\",\"content\":\"first\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String commentUrl = commentsUrl + "/" + id(comment);
+        postTag = assertChanged(postUrl, postTag);
+        commentsTag = assertChanged(commentsUrl, commentsTag);
+
+        mvc.perform(patch(commentUrl).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"bob\",\"content\":\"edited\"}"))
+                .andExpect(status().isOk());
+        commentsTag = assertChanged(commentsUrl, commentsTag);
+
+        mvc.perform(delete(commentUrl)).andExpect(status().isNoContent());
+        postTag = assertChanged(postUrl, postTag);
+        assertChanged(commentsUrl, commentsTag);
+
+        mvc.perform(patch(postUrl).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alice\",\"content\":\"edited\"}"))
+                .andExpect(status().isOk());
+        postTag = assertChanged(postUrl, postTag);
+
+        mvc.perform(delete(postUrl)).andExpect(status().isNoContent());
+        // Gone rather than a stale 304
+        mvc.perform(get(postUrl).header(HttpHeaders.IF_NONE_MATCH, postTag))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).as("ETag of %s", url).isNotNull();
+        return etag;
+    }
+
+    // The old tag gets the full representation again, under a new tag that then revalidates
+    private String assertChanged(String url, String oldTag) throws Exception {
+        String etag = mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, oldTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).as("ETag of %s", url).isNotNull().isNotEqualTo(oldTag);
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+        return etag;
+    }
+
+    private String id(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+}
@@ -0,0 +1,108 @@
+package com.contoso.socialapp.controller;
+
+import com.contoso.socialapp.config.QueryStatsFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets per endpoint, read from the X-Query-Count header. A loop that queries per row
+ * (an N+1) blows the budget no matter how few rows the page has.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueryBudgetTests {
+
+    @TempDir
+    static Path dbDir;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("app.sqlite.path", () -> dbDir.resolve("budget.db").toString());
+    }
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void endpointsStayWithinTheirQueryBudget() throws Exception {
+        String postId = null;
+        for (int i = 0; i < 30; i++) {
+            MvcResult created = mvc.perform(post("/api/posts").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"alice\",\"content\":\"post " + i + "\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(queries(1))
+                    .andReturn();
+            postId = id(created);
+        }
+        for (int i = 0; i < 5; i++) {
+            mvc.perform(post("/api/posts/" + postId + "/comments").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"bob" + i + "\",\"content\":\"comment\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(queries(1));
+            mvc.perform(post("/api/posts/" + postId + "/likes").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"bob" + i + "\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(queries(1));
+        }
+
+        // A batch is one batched statement however many items it carries
+        mvc.perform(post("/api/posts/batch").contentType(MediaType.APPLICATION_JSON).content(items(50,
+                        "{\"username\":\"importer\",\"content\":\"bulk\"}")))
+                .andExpect(status().isOk())
+                .andExpect(queries(1));
+        mvc.perform(post("/api/posts/" + postId + "/comments/batch").contentType(MediaType.APPLICATION_JSON).content(items(50,
+                        "{\"username\":\"importer\",\"content\":\"bulk\"}")))
+                .andExpect(status().isOk())
+                .andExpect(queries(1));
+
+        mvc.perform(get("/api/posts?limit=20")).andExpect(status().isOk()).andExpect(queries(1));
+        mvc.perform(get("/api/posts/" + postId)).andExpect(status().isOk()).andExpect(queries(1));
+        mvc.perform(get("/api/posts/lookup?ids=" + postId + ",00000000-0000-7000-8000-000000000000"))
+                .andExpect(status().isOk()).andExpect(queries(1));
+        mvc.perform(get("/api/posts/" + postId + "/comments")).andExpect(status().isOk()).andExpect(queries(1));
+        mvc.perform(get("/api/users/alice/posts?limit=20")).andExpect(status().isOk()).andExpect(queries(1));
+        mvc.perform(get("/api/users/bob0/comments")).andExpect(status().isOk()).andExpect(queries(1));
+        mvc.perform(get("/api/users/alice")).andExpect(status().isOk()).andExpect(queries(1));
+    }
+
+    private static ResultMatcher queries(int budget) {
+        return result -> {
+            String header = result.getResponse().getHeader(QueryStatsFilter.QUERY_COUNT_HEADER);
+            assertThat(header).as("query count header").isNotNull();
+            assertThat(Integer.parseInt(header))
+                    .as("statements for %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                    .isLessThanOrEqualTo(budget);
+        };
+    }
+
+    private static String items(int count, String item) {
+        return "[" + String.join(",", Collections.nCopies(count, item)) + "]";
+    }
+
+    private String id(MvcResult result) throws Exception {
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString());
+        return body.get("id").asText();
+    }
+}
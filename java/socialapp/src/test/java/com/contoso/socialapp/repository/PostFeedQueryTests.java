@@ -0,0 +1,131 @@
+package com.contoso.socialapp.repository;
+
+import com.contoso.socialapp.config.DatabaseInitializer;
+import com.contoso.socialapp.model.PageCursor;
+import com.contoso.socialapp.model.Post;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The feed and single-post reads take one statement however many posts exist, and the denormalized
+ * counters they return agree with counting likes and comments per post, the old N+1 way. Latency numbers
+ * live in the JMH benchmarks module; this only checks statement counts and results.
+ */
+class PostFeedQueryTests {
+
+    private static final int[] FEED_SIZES = {100, 1_000, 5_000};
+    private static final int PAGE_SIZE = 50;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void feedUsesOneStatementRegardlessOfPostCount() throws Exception {
+        for (int size : FEED_SIZES) {
+            SingleConnectionDataSource target = new SingleConnectionDataSource(
+                    "jdbc:sqlite:" + tempDir.resolve("feed-" + size + ".db"), true);
+            CountingDataSource dataSource = new CountingDataSource(target);
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            new DatabaseInitializer(jdbc).run();
+            seed(jdbc, size);
+            PostRepository repository = new PostRepository(jdbc);
+
+            List<Post> feed = new ArrayList<>(size);
+            PageCursor after = null;
+            do {
+                dataSource.statements.set(0);
+                List<Post> rows = repository.findPage(after, PAGE_SIZE + 1);
+                assertThat(dataSource.statements.get()).as("statements per feed page").isEqualTo(1);
+                List<Post> page = rows.subList(0, Math.min(PAGE_SIZE, rows.size()));
+                feed.addAll(page);
+                Post last = page.isEmpty() ? null : page.get(page.size() - 1);
+                after = rows.size() > PAGE_SIZE ? new PageCursor(last.getCreatedAt(), last.getId()) : null;
+            } while (after != null);
+
+            assertThat(feed).extracting(Post::getId).containsExactlyElementsOf(legacyFeedIds(jdbc));
+            for (Post p : feed) {
+                assertThat(p.getLikesCount()).as("likes of %s", p.getId()).isEqualTo(legacyCount(jdbc, "likes", p.getId()));
+                assertThat(p.getCommentsCount()).as("comments of %s", p.getId()).isEqualTo(legacyCount(jdbc, "comments", p.getId()));
+            }
+
+            Post sample = feed.get(size / 2);
+            dataSource.statements.set(0);
+            assertThat(repository.findById(sample.getId())).contains(sample);
+            assertThat(dataSource.statements.get()).as("statements per post").isEqualTo(1);
+            target.destroy();
+        }
+    }
+
+    // The reads the feed used before the counter columns: every ID, then a COUNT per post and table
+    private static List<String> legacyFeedIds(JdbcTemplate jdbc) {
+        return jdbc.query("SELECT id FROM posts ORDER BY created_at DESC, id DESC", (rs, rn) -> Ids.toText(rs.getBytes(1)));
+    }
+
+    private static int legacyCount(JdbcTemplate jdbc, String table, String postId) {
+        Integer c = jdbc.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE post_id=?", Integer.class, Ids.toBytes(postId));
+        return c == null ? 0 : c;
+    }
+
+    private void seed(JdbcTemplate jdbc, int size) {
+        List<Object[]> posts = new ArrayList<>();
+        List<Object[]> likes = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String id = UUID.randomUUID().toString();
+            long ts = 1735689600000L + i;
+            posts.add(new Object[]{Ids.toBytes(id), "user" + (i % 50), "post " + i, ts, ts});
+            for (int l = 0; l < i % 5; l++) {
+                likes.add(new Object[]{Ids.toBytes(id), "liker" + l, ts});
+            }
+            for (int c = 0; c < i % 3; c++) {
+                comments.add(new Object[]{Ids.toBytes(UUID.randomUUID().toString()), Ids.toBytes(id), "commenter" + c, "comment " + c, ts, ts});
+            }
+        }
+        jdbc.execute("BEGIN");
+        jdbc.batchUpdate("INSERT INTO posts (id, username, content, created_at, updated_at) VALUES (?,?,?,?,?)", posts);
+        jdbc.batchUpdate("INSERT INTO likes (post_id, username, liked_at) VALUES (?,?,?)", likes);
+        jdbc.batchUpdate("INSERT INTO comments (id, post_id, username, content, created_at, updated_at) VALUES (?,?,?,?,?,?)", comments);
+        jdbc.execute("COMMIT");
+    }
+
+    /** Counts every statement prepared or created on connections handed out by the target. */
+    static class CountingDataSource extends DelegatingDataSource {
+        final AtomicInteger statements = new AtomicInteger();
+
+        CountingDataSource(SingleConnectionDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection con = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("prepareStatement") || name.equals("createStatement") || name.equals("prepareCall")) {
+                            statements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(con, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.contoso.socialapp.repository;
+
+import com.contoso.socialapp.config.SqliteProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqliteWriterTests {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SimpleMeterRegistry registry;
+    private SqliteWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("writer.db"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE t (v INTEGER PRIMARY KEY)");
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) writer.stop();
+        dataSource.destroy();
+    }
+
+    @Test
+    void failingCommandOnlyFailsItsOwnCaller() {
+        // A long window and a batch of exactly three, so the three commands are committed together
+        writer = start(true, Duration.ofSeconds(5), 3);
+        CompletableFuture<Integer> first = writer.submit(() -> insert(1));
+        CompletableFuture<Integer> failing = writer.submit(() -> {
+            insert(2);
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Integer> third = writer.submit(() -> insert(3));
+
+        assertThat(first.join()).isEqualTo(1);
+        assertThat(third.join()).isEqualTo(1);
+        assertThatThrownBy(failing::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(registry.get("sqlite.writer.batch.size").summary().count()).isEqualTo(1);
+        // The failing command's own insert was rolled back to its savepoint; the others committed
+        assertThat(values()).containsExactly(1, 3);
+    }
+
+    @Test
+    void executeReturnsResultsAndRethrowsTheCommandsException() {
+        writer = start(true, Duration.ofMillis(2), 256);
+        assertThat(writer.execute(() -> insert(1))).isEqualTo(1);
+        assertThatThrownBy(() -> writer.execute(() -> {
+            throw new IllegalArgumentException("bad input");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("bad input");
+        // A failing statement surfaces as the same exception a direct call would throw
+        assertThatThrownBy(() -> writer.execute(() -> insert(1))).isInstanceOf(DataAccessException.class);
+        assertThat(values()).containsExactly(1);
+    }
+
+    @Test
+    void stopCommitsEverythingAlreadyQueued() {
+        writer = start(true, Duration.ofMillis(50), 10);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int v = i;
+            futures.add(writer.submit(() -> insert(v)));
+        }
+        writer.stop();
+        writer = null;
+
+        assertThat(futures).allSatisfy(f -> assertThat(f).isCompletedWithValue(1));
+        assertThat(values()).hasSize(100);
+    }
+
+    @Test
+    void disabledWriterStillRunsEachCommandInOneTransaction() {
+        writer = start(false, Duration.ofMillis(2), 256);
+        writer.run(() -> insert(1));
+        assertThatThrownBy(() -> writer.execute(() -> {
+            insert(2);
+            return insert(1); // duplicate key
+        })).isInstanceOf(DataAccessException.class);
+        // The command's first insert went down with it
+        assertThat(values()).containsExactly(1);
+    }
+
+    private SqliteWriter start(boolean enabled, Duration commitWindow, int maxBatchSize) {
+        SqliteProperties properties = new SqliteProperties();
+        properties.getWriter().setEnabled(enabled);
+        properties.getWriter().setCommitWindow(commitWindow);
+        properties.getWriter().setMaxBatchSize(maxBatchSize);
+        SqliteWriter w = new SqliteWriter(properties, new DataSourceTransactionManager(dataSource), registry);
+        w.start();
+        return w;
+    }
+
+    private int insert(int v) {
+        return jdbc.update("INSERT INTO t (v) VALUES (?)", v);
+    }
+
+    private List<Integer> values() {
+        return jdbc.queryForList("SELECT v FROM t ORDER BY v", Integer.class);
+    }
+}
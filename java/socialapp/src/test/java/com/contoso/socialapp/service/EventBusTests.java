@@ -0,0 +1,108 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.controller.EventController;
+import com.contoso.socialapp.model.FeedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventBusTests {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) bus.stop();
+    }
+
+    @Test
+    void postSubscribersOnlyReceiveTheirPostsEvents() throws Exception {
+        bus = start(10, 16);
+        EventBus.Subscription all = bus.subscribe(null);
+        EventBus.Subscription a = bus.subscribe("a");
+        EventBus.Subscription b = bus.subscribe("b");
+
+        bus.publish(FeedEvent.LIKE_ADDED, "a", "first");
+        bus.publish(FeedEvent.COMMENT_CREATED, "b", "second");
+
+        assertThat(all.poll(WAIT).getData()).isEqualTo("first");
+        assertThat(all.poll(WAIT).getData()).isEqualTo("second");
+        FeedEvent forA = a.poll(WAIT);
+        assertThat(forA.getPostId()).isEqualTo("a");
+        assertThat(forA.getType()).isEqualTo(FeedEvent.LIKE_ADDED);
+        assertThat(b.poll(WAIT).getData()).isEqualTo("second");
+        // Both events have been dispatched to the firehose, so nothing else is on its way to either post
+        assertThat(a.poll(Duration.ZERO)).isNull();
+        assertThat(b.poll(Duration.ZERO)).isNull();
+    }
+
+    @Test
+    void slowSubscriberIsEvictedOnceItsBufferIsFullWithoutHoldingOthersBack() throws Exception {
+        bus = start(10, 4);
+        EventBus.Subscription slow = bus.subscribe(null);
+        EventBus.Subscription fast = bus.subscribe(null);
+
+        // A full buffer is fine; one more event is not
+        for (int i = 0; i < 4; i++) {
+            bus.publish(FeedEvent.LIKE_ADDED, "p", i);
+            assertThat(fast.poll(WAIT).getData()).isEqualTo(i);
+        }
+        assertThat(slow.isOpen()).isTrue();
+        for (int i = 4; i < 10; i++) {
+            bus.publish(FeedEvent.LIKE_ADDED, "p", i);
+            assertThat(fast.poll(WAIT).getData()).isEqualTo(i);
+        }
+
+        assertThat(slow.isOpen()).isFalse();
+        assertThat(slow.poll(Duration.ZERO)).isNull();
+        assertThat(fast.isOpen()).isTrue();
+        assertThat(registry.get("events.subscribers.evicted").counter().count()).isEqualTo(1);
+        assertThat(registry.get("events.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void streamsBeyondTheLimitAreRejectedWithServiceUnavailable() {
+        bus = start(2, 16);
+        EventBus.Subscription first = bus.subscribe(null);
+        bus.subscribe("p");
+
+        assertThatThrownBy(() -> bus.subscribe(null)).isInstanceOf(RejectedExecutionException.class);
+        // No post filter, so the controller neither checks the post nor reaches the streamer
+        ResponseEntity<SseEmitter> rejected = new EventController(bus, null, null).stream(null);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeaders().getFirst("Retry-After")).isEqualTo("5");
+
+        first.close();
+        assertThat(bus.subscribe(null).isOpen()).isTrue();
+    }
+
+    @Test
+    void stopEndsOpenSubscriptions() throws Exception {
+        bus = start(10, 16);
+        EventBus.Subscription s = bus.subscribe("p");
+
+        bus.stop();
+
+        assertThat(s.isOpen()).isFalse();
+        assertThat(s.poll(WAIT)).isNull();
+        assertThat(bus.subscribe(null).isOpen()).isFalse();
+    }
+
+    private EventBus start(int maxSubscribers, int bufferSize) {
+        EventBus b = new EventBus(maxSubscribers, bufferSize, 1024, registry);
+        b.start();
+        return b;
+    }
+}
@@ -0,0 +1,195 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.config.DatabaseInitializer;
+import com.contoso.socialapp.config.SqliteProperties;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.repository.Ids;
+import com.contoso.socialapp.repository.LikeRepository;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.SqliteWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeedProjectionTests {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IdGenerator ids = new IdGenerator();
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SqliteWriter writer;
+    // Thread whose next findByIds waits on readGate after reading
+    private final AtomicReference<Thread> slowReader = new AtomicReference<>();
+    private final CountDownLatch readDone = new CountDownLatch(1);
+    private final CountDownLatch readGate = new CountDownLatch(1);
+    private PostRepository postRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("projection.db"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("PRAGMA foreign_keys = ON");
+        new DatabaseInitializer(jdbc).run();
+        postRepository = new PostRepository(jdbc) {
+            @Override
+            public List<Post> findByIds(Collection<String> ids) {
+                List<Post> rows = super.findByIds(ids);
+                if (slowReader.compareAndSet(Thread.currentThread(), null)) {
+                    readDone.countDown();
+                    await(readGate);
+                }
+                return rows;
+            }
+        };
+        SqliteProperties properties = new SqliteProperties();
+        properties.getWriter().setEnabled(false);
+        writer = new SqliteWriter(properties, new DataSourceTransactionManager(dataSource), registry);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+        dataSource.destroy();
+    }
+
+    @Test
+    void servesTheFeedInOrderAndFollowsRefreshes() {
+        String first = insert("2024-01-01T00:00:00.000Z");
+        String second = insert("2024-01-02T00:00:00.000Z");
+        FeedProjection projection = load(buffer(false));
+        assertThat(projection.isReady()).isTrue();
+        assertThat(projection.page(null, 10)).extracting(Post::getId).containsExactly(second, first);
+
+        jdbc.update("UPDATE posts SET likes_count = 3 WHERE id = ?", Ids.toBytes(first));
+        projection.refresh(first);
+        assertThat(projection.get(first)).get().extracting(Post::getLikesCount).isEqualTo(3);
+
+        jdbc.update("DELETE FROM posts WHERE id = ?", Ids.toBytes(second));
+        projection.refresh(second);
+        assertThat(projection.get(second)).isEmpty();
+        assertThat(projection.page(null, 10)).extracting(Post::getId).containsExactly(first);
+    }
+
+    @Test
+    void aPostBeingRefreshedIsNeverMissingFromReads() throws Exception {
+        String id = insert("2024-01-01T00:00:00.000Z");
+        FeedProjection projection = load(buffer(false));
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> misses = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                misses.add(readers.submit(() -> {
+                    int missed = 0;
+                    while (!done.get()) {
+                        if (projection.get(id).isEmpty()) missed++;
+                        if (projection.page(null, 10).size() != 1) missed++;
+                    }
+                    return missed;
+                }));
+            }
+            for (int i = 0; i < 2_000; i++) {
+                jdbc.update("UPDATE posts SET likes_count = ? WHERE id = ?", i, Ids.toBytes(id));
+                projection.refresh(id);
+            }
+            done.set(true);
+            for (Future<Integer> f : misses) {
+                assertThat(f.get(10, TimeUnit.SECONDS)).isZero();
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertThat(projection.get(id)).get().extracting(Post::getLikesCount).isEqualTo(1_999);
+    }
+
+    @Test
+    void anOlderRefreshNeverReplacesANewerOne() throws Exception {
+        String id = insert("2024-01-01T00:00:00.000Z");
+        FeedProjection projection = load(buffer(false));
+
+        jdbc.update("UPDATE posts SET likes_count = 1 WHERE id = ?", Ids.toBytes(id));
+        Thread older = new Thread(() -> projection.refresh(id));
+        slowReader.set(older);
+        older.start();
+        // The older refresh has read likes_count = 1 and waits before installing it
+        assertThat(readDone.await(5, TimeUnit.SECONDS)).isTrue();
+
+        jdbc.update("UPDATE posts SET likes_count = 2 WHERE id = ?", Ids.toBytes(id));
+        projection.refresh(id);
+        readGate.countDown();
+        older.join(5_000);
+
+        assertThat(projection.get(id)).get().extracting(Post::getLikesCount).isEqualTo(2);
+    }
+
+    @Test
+    void bufferedLikesAreOverlaidAndRefreshedOnceFlushed() {
+        String id = insert("2024-01-01T00:00:00.000Z");
+        LikeWriteBuffer buffer = buffer(true);
+        FeedProjection projection = load(buffer);
+
+        assertThat(buffer.like(id, "bob", "2024-01-03T00:00:00.000Z")).isTrue();
+        assertThat(projection.get(id)).get().extracting(Post::getLikesCount).isEqualTo(1);
+        assertThat(projection.page(null, 1)).extracting(Post::getLikesCount).containsExactly(1);
+
+        buffer.flush();
+        // Stored now, and the projection re-read the post, so the overlay no longer adds it
+        assertThat(jdbc.queryForObject("SELECT likes_count FROM posts", Integer.class)).isEqualTo(1);
+        assertThat(projection.get(id)).get().extracting(Post::getLikesCount).isEqualTo(1);
+    }
+
+    private LikeWriteBuffer buffer(boolean enabled) {
+        return new LikeWriteBuffer(new LikeRepository(jdbc), writer,
+                new PostCache(false, 100, Duration.ofSeconds(30), registry),
+                enabled, Duration.ofMinutes(1), 10_000, registry);
+    }
+
+    private FeedProjection load(LikeWriteBuffer buffer) {
+        FeedProjection projection = new FeedProjection(postRepository, buffer, true, registry);
+        projection.run(null);
+        return projection;
+    }
+
+    private String insert(String createdAt) {
+        Post p = new Post();
+        p.setId(ids.next());
+        p.setUsername("alice");
+        p.setContent("hello");
+        p.setCreatedAt(createdAt);
+        p.setUpdatedAt(createdAt);
+        postRepository.insert(p);
+        return p.getId();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.config.DatabaseInitializer;
+import com.contoso.socialapp.config.SqliteProperties;
+import com.contoso.socialapp.model.Like;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.repository.LikeRepository;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.SqliteWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeWriteBufferTests {
+
+    private static final String AT = "2024-01-03T00:00:00.000Z";
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // Runs once, inside the next flush's transaction, just before the likes are written
+    private final AtomicReference<Runnable> duringFlush = new AtomicReference<>();
+    private final List<Like> written = new ArrayList<>();
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SqliteWriter writer;
+    private PostRepository postRepository;
+    private LikeWriteBuffer buffer;
+    private String postId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("likes.db"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("PRAGMA foreign_keys = ON");
+        new DatabaseInitializer(jdbc).run();
+        SqliteProperties properties = new SqliteProperties();
+        properties.getWriter().setEnabled(false);
+        writer = new SqliteWriter(properties, new DataSourceTransactionManager(dataSource), registry);
+        writer.start();
+        LikeRepository likeRepository = new LikeRepository(jdbc) {
+            @Override
+            public List<Like> likeAll(List<Like> likes) {
+                Runnable hook = duringFlush.getAndSet(null);
+                if (hook != null) hook.run();
+                written.addAll(likes);
+                return super.likeAll(likes);
+            }
+
+            @Override
+            public void unlikeAll(List<Like> likes) {
+                written.addAll(likes);
+                super.unlikeAll(likes);
+            }
+        };
+        buffer = new LikeWriteBuffer(likeRepository, writer, new PostCache(false, 100, Duration.ofSeconds(30), registry),
+                true, Duration.ofMinutes(1), 10_000, registry);
+        postRepository = new PostRepository(jdbc);
+        Post p = new Post();
+        p.setId(new IdGenerator().next());
+        p.setUsername("alice");
+        p.setContent("hello");
+        p.setCreatedAt(AT);
+        p.setUpdatedAt(AT);
+        postRepository.insert(p);
+        postId = p.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+        writer.stop();
+        dataSource.destroy();
+    }
+
+    @Test
+    void likeThenUnlikeCancelsOutWithoutWriting() {
+        assertThat(buffer.like(postId, "bob", AT)).isTrue();
+        assertThat(buffer.unlike(postId, "bob")).isTrue();
+        assertThat(likesShown()).isZero();
+
+        buffer.flush();
+
+        assertThat(written).isEmpty();
+        assertThat(storedLikers()).isEmpty();
+        assertThat(depth()).isZero();
+    }
+
+    @Test
+    void overlayAddsThePendingDeltaToTheStoredCount() {
+        new LikeRepository(jdbc).like(postId, "bob", AT);
+
+        assertThat(buffer.unlike(postId, "bob")).isTrue();
+        assertThat(buffer.likeAll(postId, List.of("carol", "dave", "carol"), AT)).containsExactly("carol", "dave");
+        // Repeats change nothing
+        assertThat(buffer.like(postId, "carol", AT)).isFalse();
+        assertThat(buffer.unlike(postId, "erin")).isFalse();
+        assertThat(likesShown()).isEqualTo(1 - 1 + 2);
+
+        buffer.flush();
+
+        assertThat(storedLikers()).containsExactlyInAnyOrder("carol", "dave");
+        assertThat(likesShown()).isEqualTo(2);
+        assertThat(depth()).isZero();
+    }
+
+    @Test
+    void aTapDuringTheFlushSurvivesIt() {
+        buffer.like(postId, "bob", AT);
+        duringFlush.set(() -> assertThat(buffer.unlike(postId, "bob")).isTrue());
+
+        buffer.flush();
+
+        // The like was written, and the unlike that overtook it is still pending against it
+        assertThat(storedLikers()).containsExactly("bob");
+        assertThat(depth()).isEqualTo(1);
+        assertThat(likesShown()).isZero();
+
+        buffer.flush();
+
+        assertThat(storedLikers()).isEmpty();
+        assertThat(depth()).isZero();
+        assertThat(likesShown()).isZero();
+    }
+
+    @Test
+    void aFailedFlushKeepsItsEntriesForTheNextOne() {
+        buffer.like(postId, "bob", AT);
+        duringFlush.set(() -> {
+            throw new IllegalStateException("disk full");
+        });
+
+        buffer.flush();
+
+        assertThat(storedLikers()).isEmpty();
+        assertThat(depth()).isEqualTo(1);
+        assertThat(likesShown()).isEqualTo(1);
+
+        buffer.flush();
+
+        assertThat(storedLikers()).containsExactly("bob");
+        assertThat(depth()).isZero();
+        assertThat(likesShown()).isEqualTo(1);
+    }
+
+    @Test
+    void stopFlushesEverythingStillBuffered() {
+        buffer.start();
+        for (int i = 0; i < 50; i++) {
+            buffer.like(postId, "user" + i, AT);
+        }
+        buffer.unlike(postId, "user0");
+
+        buffer.stop();
+
+        assertThat(storedLikers()).hasSize(49).doesNotContain("user0");
+        assertThat(depth()).isZero();
+    }
+
+    // What a read of the post returns: the stored counter plus the buffered taps
+    private int likesShown() {
+        Post p = postRepository.findById(postId).orElseThrow();
+        buffer.overlay(p);
+        return p.getLikesCount();
+    }
+
+    private List<String> storedLikers() {
+        return jdbc.queryForList("SELECT username FROM likes", String.class);
+    }
+
+    private double depth() {
+        return registry.get("likes.buffer.depth").gauge().value();
+    }
+}
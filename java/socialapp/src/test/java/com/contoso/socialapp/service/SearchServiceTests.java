@@ -0,0 +1,164 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.config.DatabaseInitializer;
+import com.contoso.socialapp.model.Comment;
+import com.contoso.socialapp.model.CursorPage;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.model.SearchHit;
+import com.contoso.socialapp.repository.CommentRepository;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.SearchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the real FTS5 indexes, with pages of two and only the first five results reachable.
+ */
+class SearchServiceTests {
+
+    private static final String AT = "2024-01-01T00:00:00.000Z";
+
+    @TempDir
+    Path tempDir;
+
+    private final IdGenerator ids = new IdGenerator();
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SearchService search;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("search.db"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("PRAGMA foreign_keys = ON");
+        new DatabaseInitializer(jdbc).run();
+        search = new SearchService(new SearchRepository(jdbc));
+        ReflectionTestUtils.setField(search, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(search, "maxPageSize", 2);
+        ReflectionTestUtils.setField(search, "maxResults", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void userInputIsQuotedSoFtsOperatorsAreMatchedAsText() {
+        assertThat(SearchService.toMatchExpression("  title:foo OR \"bar* -baz NEAR(x)  "))
+                .isEqualTo("\"title:foo\" \"OR\" \"\"\"bar\"* \"-baz\" \"NEAR(x)\"");
+        assertThat(SearchService.toMatchExpression("* kiwi")).isEqualTo("\"kiwi\"");
+        assertThatThrownBy(() -> SearchService.toMatchExpression(" * ")).isInstanceOf(IllegalArgumentException.class);
+
+        insertPost("NOT a column: filter");
+        // Each of these is a syntax error or a column filter if passed to MATCH unquoted
+        assertThat(search.search("content:filter", "posts", null, null).getItems()).isEmpty();
+        assertThat(search.search("NOT", "posts", null, null).getItems()).hasSize(1);
+        assertThat(search.search("column: AND (", "posts", null, null).getItems()).isEmpty();
+    }
+
+    @Test
+    void snippetsAreEscapedBeforeMatchesAreMarked() {
+        insertPost("<b>kiwi</b> & \"pear\"");
+
+        List<SearchHit> hits = search.search("pear", "posts", null, null).getItems();
+
+        assertThat(hits).extracting(SearchHit::getSnippet)
+                .containsExactly("&lt;b&gt;kiwi&lt;/b&gt; &amp; &quot;<mark>pear</mark>&quot;");
+    }
+
+    @Test
+    void allMergesPostsAndCommentsByScore() {
+        String post = insertPost("plum plum plum");
+        insertPost("plum and a great many other words that dilute it");
+        insertComment(post, "plum plum");
+        insertComment(post, "a plum");
+
+        List<SearchHit> hits = collect("plum", "all");
+
+        assertThat(hits).hasSize(4);
+        assertThat(hits).extracting(SearchHit::getType).containsOnly("post", "comment")
+                .contains("post", "comment");
+        assertThat(hits).extracting(SearchHit::getId).doesNotHaveDuplicates();
+        for (int i = 1; i < hits.size(); i++) {
+            assertThat(hits.get(i).getScore()).isLessThanOrEqualTo(hits.get(i - 1).getScore());
+        }
+    }
+
+    @Test
+    void pagingStopsAtTheResultLimitWithoutHandingOutAnUnusableCursor() {
+        for (int i = 0; i < 7; i++) {
+            insertPost("apple " + i);
+        }
+
+        List<SearchHit> hits = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<SearchHit> page = search.search("apple", "posts", null, cursor);
+            sizes.add(page.getItems().size());
+            hits.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // The last reachable page is cut to the one result left under the limit
+        assertThat(sizes).containsExactly(2, 2, 1);
+        assertThat(hits).extracting(SearchHit::getId).doesNotHaveDuplicates();
+        assertThat(search.search("apple", "posts", 2, cursor(4)).getNextCursor()).isNull();
+        assertThatThrownBy(() -> search.search("apple", "posts", null, cursor(5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> search.search("apple", "posts", null, "not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<SearchHit> collect(String q, String type) {
+        List<SearchHit> hits = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<SearchHit> page = search.search(q, type, null, cursor);
+            hits.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return hits;
+    }
+
+    private String insertPost(String content) {
+        Post p = new Post();
+        p.setId(ids.next());
+        p.setUsername("alice");
+        p.setContent(content);
+        p.setCreatedAt(AT);
+        p.setUpdatedAt(AT);
+        new PostRepository(jdbc).insert(p);
+        return p.getId();
+    }
+
+    private void insertComment(String postId, String content) {
+        Comment c = new Comment();
+        c.setId(ids.next());
+        c.setPostId(postId);
+        c.setUsername("bob");
+        c.setContent(content);
+        c.setCreatedAt(AT);
+        c.setUpdatedAt(AT);
+        new CommentRepository(jdbc).insert(c);
+    }
+
+    private static String cursor(int offset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Integer.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package com.contoso.socialapp.service;
+
+import com.contoso.socialapp.config.DatabaseInitializer;
+import com.contoso.socialapp.model.Post;
+import com.contoso.socialapp.repository.CommentRepository;
+import com.contoso.socialapp.repository.LikeRepository;
+import com.contoso.socialapp.repository.PostRepository;
+import com.contoso.socialapp.repository.Timestamps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on a manual clock with one-second buckets, a four-bucket window and a one-bucket half-life, so
+ * activity one bucket later weighs twice as much.
+ */
+class TrendingPostsTests {
+
+    // Half a bucket past a boundary, so a millisecond either side of "now" is the same bucket
+    private static final long START = 1_700_000_000_500L;
+
+    @TempDir
+    Path tempDir;
+
+    private final ManualTime time = new ManualTime();
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("trending.db"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        new DatabaseInitializer(jdbc).run();
+        time.now = START;
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void olderActivityDecaysBelowNewer() {
+        TrendingPosts trending = trending(10);
+        trending.recordLikes("a", 3);
+        time.now += 2_000;
+        // One like two half-lives later outweighs three earlier ones (1 * 2^2 > 3)
+        trending.recordLikes("b", 1);
+
+        assertThat(trending.top(10)).containsExactly("b", "a");
+        assertThat(trending.score("b")).isGreaterThan(trending.score("a"));
+    }
+
+    @Test
+    void activityLeavesOnceItsBucketExpires() {
+        TrendingPosts trending = trending(10);
+        trending.recordLikes("a", 5);
+        time.now += 1_000;
+        trending.recordLikes("b", 1);
+
+        time.now += 3_000; // a's bucket is now outside the window, b's is the oldest inside it
+        trending.refresh();
+        assertThat(trending.top(10)).containsExactly("b");
+        assertThat(trending.score("a")).isZero();
+
+        time.now += 1_000;
+        trending.refresh();
+        assertThat(trending.top(10)).isEmpty();
+    }
+
+    @Test
+    void aPostAboveTheFloorEvictsTheWeakest() {
+        TrendingPosts trending = trending(2);
+        trending.recordLikes("a", 1);
+        trending.recordLikes("b", 2);
+        trending.recordLikes("c", 3);
+        assertThat(trending.top(10)).containsExactly("c", "b");
+
+        // At the floor is not above it
+        trending.recordLikes("d", 2);
+        assertThat(trending.top(10)).containsExactly("c", "b");
+
+        // Evicted posts keep their counts, so a can climb back in
+        trending.recordLikes("a", 5);
+        assertThat(trending.top(10)).containsExactly("a", "c");
+    }
+
+    @Test
+    void rebuildLeavesActivityFromTheStartInstantOnToTheLivePath() {
+        String a = insertPost();
+        String b = insertPost();
+        LikeRepository likes = new LikeRepository(jdbc);
+        likes.like(a, "u1", Timestamps.toIso(START - 1));
+        likes.like(a, "u2", Timestamps.toIso(START)); // also recorded live below
+        likes.like(b, "u1", Timestamps.toIso(START - 1));
+        likes.like(b, "u2", Timestamps.toIso(START - 1));
+        likes.like(b, "u3", Timestamps.toIso(START - 5_000)); // older than the window
+
+        TrendingPosts trending = trending(10);
+        trending.run(null);
+        assertThat(trending.score(a)).isEqualTo(trending.score(b) / 2);
+
+        trending.recordLikes(a, 1);
+        assertThat(trending.score(a)).isPositive().isEqualTo(trending.score(b));
+    }
+
+    private TrendingPosts trending(int topK) {
+        return new TrendingPosts(new LikeRepository(jdbc), new CommentRepository(jdbc), time,
+                Duration.ofSeconds(4), Duration.ofSeconds(1), Duration.ofSeconds(1), topK, 2, new SimpleMeterRegistry());
+    }
+
+    private String insertPost() {
+        Post p = new Post();
+        p.setId(new IdGenerator().next());
+        p.setUsername("alice");
+        p.setContent("hello");
+        p.setCreatedAt(Timestamps.toIso(START - 10_000));
+        p.setUpdatedAt(p.getCreatedAt());
+        new PostRepository(jdbc).insert(p);
+        return p.getId();
+    }
+
+    private static class ManualTime extends TimeProvider {
+        long now;
+
+        @Override
+        public long nowMillis() {
+            return now;
+        }
+    }
+}